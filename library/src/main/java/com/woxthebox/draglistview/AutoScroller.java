@@ -17,7 +17,12 @@
 package com.woxthebox.draglistview;
 
 import android.content.Context;
+import android.os.Build;
 import android.os.Handler;
+import android.support.annotation.RequiresApi;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
 
 class AutoScroller {
     enum AutoScrollMode {
@@ -34,20 +39,27 @@ class AutoScroller {
         void onAutoScrollColumnBy(int columns);
     }
 
-    private static final int SCROLL_SPEED_DP = 8;
-    private static final int AUTO_SCROLL_UPDATE_DELAY = 12;
+    // Speed in dp per second when the touch is at the very edge of the scroll zone
+    private static final int MAX_SCROLL_SPEED_DP = 1000;
+    // Part of the max speed used as soon as the touch enters the scroll zone
+    private static final float MIN_SCROLL_SPEED_FRACTION = 0.15f;
+    private static final long DEFAULT_FRAME_TIME_NANOS = 16666667L;
+    private static final long MAX_FRAME_TIME_NANOS = 50000000L;
     private static final int COLUMN_SCROLL_UPDATE_DELAY = 1000;
 
-    private Handler mHandler = new Handler();
     private AutoScrollListener mListener;
     private boolean mIsAutoScrolling;
-    private int mScrollSpeed;
+    private float mMaxScrollSpeed;
+    private ScrollDirection mScrollDirection;
+    private float mEdgeDepth;
+    private float mScrollRemainder;
+    private long mLastFrameTimeNanos;
     private long mLastScrollTime;
     private AutoScrollMode mAutoScrollMode = AutoScrollMode.POSITION;
 
     AutoScroller(Context context, AutoScrollListener listener) {
         mListener = listener;
-        mScrollSpeed = (int) (context.getResources().getDisplayMetrics().density * SCROLL_SPEED_DP);
+        mMaxScrollSpeed = context.getResources().getDisplayMetrics().density * MAX_SCROLL_SPEED_DP;
     }
 
     void setAutoScrollMode(AutoScrollMode autoScrollMode) {
@@ -59,75 +71,179 @@ class AutoScroller {
     }
 
     void stopAutoScroll() {
-        mIsAutoScrolling = false;
+        if (mIsAutoScrolling) {
+            mIsAutoScrolling = false;
+            FrameDriver.getInstance().remove(this);
+        }
     }
 
     void startAutoScroll(ScrollDirection direction) {
-        switch (direction) {
+        startAutoScroll(direction, 1);
+    }
+
+    /**
+     * Starts auto scrolling or updates the direction and speed if already scrolling.
+     *
+     * @param edgeDepth how far into the scroll zone the touch is, from 0 at the inner border of the
+     *                  zone to 1 at the edge of the view. The scroll speed accelerates with the depth.
+     */
+    void startAutoScroll(ScrollDirection direction, float edgeDepth) {
+        mEdgeDepth = edgeDepth > 1 ? 1 : edgeDepth > 0 ? edgeDepth : 0;
+        if (mScrollDirection != direction) {
+            mScrollDirection = direction;
+            mScrollRemainder = 0;
+        }
+
+        if (!mIsAutoScrolling) {
+            mIsAutoScrolling = true;
+            mLastFrameTimeNanos = 0;
+            FrameDriver.getInstance().add(this);
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        long frameTime = mLastFrameTimeNanos == 0 ? DEFAULT_FRAME_TIME_NANOS
+                : Math.min(frameTimeNanos - mLastFrameTimeNanos, MAX_FRAME_TIME_NANOS);
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        switch (mScrollDirection) {
             case UP:
-                startAutoScrollPositionBy(0, mScrollSpeed);
+                autoScrollPositionBy(0, getScrollDistance(frameTime));
                 break;
             case DOWN:
-                startAutoScrollPositionBy(0, -mScrollSpeed);
+                autoScrollPositionBy(0, -getScrollDistance(frameTime));
                 break;
             case LEFT:
                 if (mAutoScrollMode == AutoScrollMode.POSITION) {
-                    startAutoScrollPositionBy(mScrollSpeed, 0);
+                    autoScrollPositionBy(getScrollDistance(frameTime), 0);
                 } else {
-                    startAutoScrollColumnBy(1);
+                    autoScrollColumnBy(1, frameTimeNanos);
                 }
                 break;
             case RIGHT:
                 if (mAutoScrollMode == AutoScrollMode.POSITION) {
-                    startAutoScrollPositionBy(-mScrollSpeed, 0);
+                    autoScrollPositionBy(-getScrollDistance(frameTime), 0);
                 } else {
-                    startAutoScrollColumnBy(-1);
+                    autoScrollColumnBy(-1, frameTimeNanos);
                 }
                 break;
         }
     }
 
-    private void startAutoScrollPositionBy(int dx, int dy) {
-        if (!mIsAutoScrolling) {
-            mIsAutoScrolling = true;
-            autoScrollPositionBy(dx, dy);
-        }
+    private int getScrollDistance(long frameTimeNanos) {
+        float speedFraction = MIN_SCROLL_SPEED_FRACTION
+                + (1 - MIN_SCROLL_SPEED_FRACTION) * mEdgeDepth * mEdgeDepth;
+        // Keep the sub pixel part so slow scrolling still moves at the right speed
+        float distance = mMaxScrollSpeed * speedFraction * frameTimeNanos / 1000000000f + mScrollRemainder;
+        int pixels = (int) distance;
+        mScrollRemainder = distance - pixels;
+        return pixels;
     }
 
-    private void autoScrollPositionBy(final int dx, final int dy) {
-        if (mIsAutoScrolling) {
+    private void autoScrollPositionBy(int dx, int dy) {
+        if (dx != 0 || dy != 0) {
             mListener.onAutoScrollPositionBy(dx, dy);
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    autoScrollPositionBy(dx, dy);
-                }
-            }, AUTO_SCROLL_UPDATE_DELAY);
         }
     }
 
-    private void startAutoScrollColumnBy(int columns) {
-        if (!mIsAutoScrolling) {
-            mIsAutoScrolling = true;
-            autoScrollColumnBy(columns);
+    private void autoScrollColumnBy(int columns, long frameTimeNanos) {
+        long frameTimeMillis = frameTimeNanos / 1000000;
+        if (frameTimeMillis - mLastScrollTime > COLUMN_SCROLL_UPDATE_DELAY) {
+            mListener.onAutoScrollColumnBy(columns);
+            mLastScrollTime = frameTimeMillis;
+        } else {
+            mListener.onAutoScrollColumnBy(0);
         }
     }
 
-    private void autoScrollColumnBy(final int columns) {
-        if (mIsAutoScrolling) {
-            if (System.currentTimeMillis() - mLastScrollTime > COLUMN_SCROLL_UPDATE_DELAY) {
-                mListener.onAutoScrollColumnBy(columns);
-                mLastScrollTime = System.currentTimeMillis();
+    /**
+     * Drives all auto scrollers from one frame callback, posted only while any of them is scrolling.
+     * Uses the Choreographer so scrolling is in sync with drawing, and a handler on older versions.
+     */
+    private static final class FrameDriver implements Runnable {
+        private static final int FALLBACK_FRAME_DELAY = 16;
+        private static FrameDriver sInstance;
+
+        private final ArrayList<AutoScroller> mScrollers = new ArrayList<>();
+        private final ArrayList<AutoScroller> mDispatchScrollers = new ArrayList<>();
+        private Object mFrameCallback;
+        private Handler mHandler;
+        private boolean mFramePosted;
+
+        static FrameDriver getInstance() {
+            if (sInstance == null) {
+                sInstance = new FrameDriver();
+            }
+            return sInstance;
+        }
+
+        void add(AutoScroller scroller) {
+            if (!mScrollers.contains(scroller)) {
+                mScrollers.add(scroller);
+            }
+            postFrame();
+        }
+
+        void remove(AutoScroller scroller) {
+            mScrollers.remove(scroller);
+        }
+
+        private void postFrame() {
+            if (mFramePosted) {
+                return;
+            }
+            mFramePosted = true;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                if (mFrameCallback == null) {
+                    mFrameCallback = new ChoreographerCallback(this);
+                }
+                Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
             } else {
-                mListener.onAutoScrollColumnBy(0);
+                if (mHandler == null) {
+                    mHandler = new Handler();
+                }
+                mHandler.postDelayed(this, FALLBACK_FRAME_DELAY);
             }
+        }
+
+        @Override
+        public void run() {
+            doFrame(System.nanoTime());
+        }
 
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    autoScrollColumnBy(columns);
+        void doFrame(long frameTimeNanos) {
+            mFramePosted = false;
+
+            // Scrollers can be stopped or started from the callbacks so dispatch to a copy
+            mDispatchScrollers.clear();
+            for (int i = 0; i < mScrollers.size(); i++) {
+                mDispatchScrollers.add(mScrollers.get(i));
+            }
+            for (int i = 0; i < mDispatchScrollers.size(); i++) {
+                AutoScroller scroller = mDispatchScrollers.get(i);
+                if (scroller.mIsAutoScrolling) {
+                    scroller.onFrame(frameTimeNanos);
                 }
-            }, AUTO_SCROLL_UPDATE_DELAY);
+            }
+            mDispatchScrollers.clear();
+
+            if (!mScrollers.isEmpty()) {
+                postFrame();
+            }
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerCallback implements Choreographer.FrameCallback {
+        private final FrameDriver mFrameDriver;
+
+        ChoreographerCallback(FrameDriver frameDriver) {
+            mFrameDriver = frameDriver;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameDriver.doFrame(frameTimeNanos);
         }
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Variable length encoding shared by the binary formats of {@link BoardSnapshot} and
+ * {@link BoardJournal}. Values are written seven bits per byte, signed values are zigzag encoded
+ * first so small negative values are small too.
+ */
+final class BinaryCodec {
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * The most elements allocated up front for a count read from a stream. Arrays grow as their
+     * elements are read, so corrupt data fails with an IOException at the end of the stream instead
+     * of allocating for a huge count.
+     */
+    static final int MAX_INITIAL_CAPACITY = 1024;
+
+    static int initialCapacity(int count) {
+        return Math.min(count, MAX_INITIAL_CAPACITY);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static final class Writer {
+        private final OutputStream mOut;
+        private final byte[] mBuffer = new byte[4096];
+        private int mPosition;
+
+        Writer(OutputStream out) {
+            mOut = out;
+        }
+
+        void writeInt(int value) throws IOException {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7fL) != 0) {
+                writeByte((int) (value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (mPosition == mBuffer.length) {
+                flush();
+            }
+            mBuffer[mPosition++] = (byte) value;
+        }
+
+        void flush() throws IOException {
+            mOut.write(mBuffer, 0, mPosition);
+            mPosition = 0;
+        }
+    }
+
+    static final class Reader {
+        private final InputStream mIn;
+
+        Reader(InputStream in) {
+            mIn = in;
+        }
+
+        int readInt() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed data");
+        }
+
+        int readCount() throws IOException {
+            long count = readVarLong();
+            if (count < 0 || count > Integer.MAX_VALUE) {
+                throw new IOException("Malformed data");
+            }
+            return (int) count;
+        }
+
+        private int readByte() throws IOException {
+            int b = mIn.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static android.support.v7.widget.RecyclerView.NO_ID;
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+
+/**
+ * A log of the changes done to a {@link BoardView} as operations on item and column ids, so the
+ * changes can be sent to another device and replayed on a board with the same items. Set it on a
+ * board with {@link BoardView#setJournal}.
+ * <p/>
+ * Items are placed after another item rather than at a row, so an operation lands in the right
+ * place even if the other board has items the journal does not know about. The row is only used
+ * when the item it should be after is missing.
+ * <p/>
+ * Items added, removed, moved or replaced directly on the adapter of a column are recorded as well.
+ * Lists set with {@link DragItemAdapter#setItemList}, {@link DragItemAdapter#submitList} or
+ * {@link BoardView#submitBoard} are not recorded, and neither are edits of an adapter while one of
+ * its items is dragged.
+ */
+public class BoardJournal {
+
+    /**
+     * The version of the binary format written by {@link #writeTo}.
+     */
+    public static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x444c564a;
+
+    /**
+     * Gives the items for added and replaced items when a journal is replayed.
+     */
+    public interface ItemResolver {
+        /**
+         * @return the item with the id, or null if it is not known and the operation should be
+         * skipped.
+         */
+        Object getItem(long itemId);
+    }
+
+    /**
+     * The type of an operation, the order of the types is part of the binary format.
+     */
+    public enum Type {
+        ADD, REMOVE, MOVE, REPLACE, MOVE_COLUMN
+    }
+
+    public static final class Operation {
+        public final Type type;
+        /**
+         * The item the operation is done on, NO_ID for {@link Type#MOVE_COLUMN}.
+         */
+        public final long itemId;
+        /**
+         * The column the item is added or moved to, or the column that is moved.
+         */
+        public final long columnId;
+        /**
+         * The item the added or moved item is placed after, NO_ID to place it first.
+         */
+        public final long afterItemId;
+        /**
+         * The row the item was added or moved to, or the new index of a moved column.
+         */
+        public final int row;
+
+        Operation(Type type, long itemId, long columnId, long afterItemId, int row) {
+            this.type = type;
+            this.itemId = itemId;
+            this.columnId = columnId;
+            this.afterItemId = afterItemId;
+            this.row = row;
+        }
+    }
+
+    private ArrayList<Operation> mOperations = new ArrayList<>();
+
+    public int getOperationCount() {
+        return mOperations.size();
+    }
+
+    public Operation getOperation(int index) {
+        return mOperations.get(index);
+    }
+
+    public void clear() {
+        mOperations.clear();
+    }
+
+    void recordAdd(long itemId, long columnId, long afterItemId, int row) {
+        mOperations.add(new Operation(Type.ADD, itemId, columnId, afterItemId, row));
+    }
+
+    void recordRemove(long itemId) {
+        mOperations.add(new Operation(Type.REMOVE, itemId, NO_ID, NO_ID, NO_POSITION));
+    }
+
+    void recordMove(long itemId, long columnId, long afterItemId, int row) {
+        mOperations.add(new Operation(Type.MOVE, itemId, columnId, afterItemId, row));
+    }
+
+    void recordReplace(long itemId) {
+        mOperations.add(new Operation(Type.REPLACE, itemId, NO_ID, NO_ID, NO_POSITION));
+    }
+
+    void recordMoveColumn(long columnId, int index) {
+        mOperations.add(new Operation(Type.MOVE_COLUMN, NO_ID, columnId, NO_ID, index));
+    }
+
+    /**
+     * Replaces the operations with the least operations that give the same board. A changed item
+     * gets one operation, except an existing item that was removed and added again which gets both
+     * a move and a replace. Operations that are superseded are dropped, like earlier moves of an
+     * item or items that were added and removed again.
+     *
+     * @param board the board the journal has been recorded from, as it is now.
+     */
+    public void compact(BoardSnapshot board) {
+        HashMap<Long, ItemState> items = new HashMap<>();
+        boolean columnsMoved = false;
+        for (Operation operation : mOperations) {
+            if (operation.type == Type.MOVE_COLUMN) {
+                columnsMoved = true;
+                continue;
+            }
+
+            ItemState state = items.get(operation.itemId);
+            if (state == null) {
+                state = new ItemState();
+                state.added = operation.type == Type.ADD;
+                items.put(operation.itemId, state);
+            }
+            switch (operation.type) {
+                case ADD:
+                    if (state.removed && !state.added) {
+                        // Removed and added again is a move and a replace of the existing item
+                        state.moved = true;
+                        state.replaced = true;
+                    }
+                    state.removed = false;
+                    break;
+                case REMOVE:
+                    state.removed = true;
+                    state.moved = false;
+                    state.replaced = false;
+                    break;
+                case MOVE:
+                    state.moved = true;
+                    break;
+                case REPLACE:
+                    state.replaced = true;
+                    break;
+            }
+        }
+
+        ArrayList<Operation> operations = new ArrayList<>();
+        if (columnsMoved) {
+            // Moving every column to its index in order gives the final column order
+            for (int i = 0; i < board.getColumnCount(); i++) {
+                operations.add(new Operation(Type.MOVE_COLUMN, NO_ID, board.getColumn(i).getColumnId(),
+                        NO_ID, i));
+            }
+        }
+        for (Operation operation : mOperations) {
+            ItemState state = operation.type != Type.MOVE_COLUMN ? items.get(operation.itemId) : null;
+            if (state != null && state.removed && !state.added && !state.removeWritten) {
+                operations.add(new Operation(Type.REMOVE, operation.itemId, NO_ID, NO_ID, NO_POSITION));
+                state.removeWritten = true;
+            }
+        }
+        // Placed in board order, so every item is placed after an item that is already in place
+        for (int i = 0; i < board.getColumnCount(); i++) {
+            BoardSnapshot.Column column = board.getColumn(i);
+            for (int row = 0; row < column.getItemCount(); row++) {
+                long itemId = column.getItemId(row);
+                ItemState state = items.get(itemId);
+                if (state != null && !state.removed && (state.added || state.moved)) {
+                    operations.add(new Operation(state.added ? Type.ADD : Type.MOVE, itemId,
+                            column.getColumnId(), row > 0 ? column.getItemId(row - 1) : NO_ID, row));
+                }
+            }
+        }
+        for (Operation operation : mOperations) {
+            ItemState state = operation.type != Type.MOVE_COLUMN ? items.get(operation.itemId) : null;
+            if (state != null && state.replaced && !state.removed && !state.added) {
+                operations.add(new Operation(Type.REPLACE, operation.itemId, NO_ID, NO_ID, NO_POSITION));
+                state.replaced = false;
+            }
+        }
+        mOperations = operations;
+    }
+
+    private static final class ItemState {
+        boolean added;
+        boolean removed;
+        boolean moved;
+        boolean replaced;
+        boolean removeWritten;
+    }
+
+    /**
+     * Applies the operations to a board in one batch. Operations on items or columns that are not in
+     * the board, and adds or replaces of items the resolver does not know, are skipped. Nothing is
+     * recorded in the journal of the board while replaying.
+     */
+    public void replay(BoardView board, ItemResolver resolver) {
+        board.setJournalSuspended(true);
+        board.beginBatch();
+        try {
+            for (Operation operation : mOperations) {
+                replay(board, resolver, operation);
+            }
+        } finally {
+            board.endBatch();
+            board.setJournalSuspended(false);
+        }
+    }
+
+    private static void replay(BoardView board, ItemResolver resolver, Operation operation) {
+        BoardView.ItemPosition position =
+                operation.itemId != NO_ID ? board.findItem(operation.itemId) : null;
+        int column = operation.columnId != NO_ID ? board.findColumn(operation.columnId) : NO_POSITION;
+        switch (operation.type) {
+            case ADD:
+                if (position == null && column != NO_POSITION) {
+                    Object item = resolver.getItem(operation.itemId);
+                    if (item != null) {
+                        board.addItem(column, getRowAfter(board, column, operation, null), item,
+                                false);
+                    }
+                }
+                break;
+            case REMOVE:
+                if (position != null) {
+                    board.removeItem(position.column, position.row);
+                }
+                break;
+            case MOVE:
+                if (position != null && column != NO_POSITION) {
+                    board.moveItem(position.column, position.row, column,
+                            getRowAfter(board, column, operation, position), false);
+                }
+                break;
+            case REPLACE:
+                if (position != null) {
+                    Object item = resolver.getItem(operation.itemId);
+                    if (item != null) {
+                        board.replaceItem(position.column, position.row, item, false);
+                    }
+                }
+                break;
+            case MOVE_COLUMN:
+                if (column != NO_POSITION) {
+                    int index = Math.max(0, Math.min(operation.row, board.getColumnCount() - 1));
+                    for (; column < index; column++) {
+                        board.swapColumn(column, column + 1);
+                    }
+                    for (; column > index; column--) {
+                        board.swapColumn(column, column - 1);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * @return the row right after the item the operation places its item after, not counting the
+     * item itself if it is already in the column.
+     */
+    private static int getRowAfter(BoardView board, int column, Operation operation,
+            BoardView.ItemPosition position) {
+        int excludedRow = position != null && position.column == column ? position.row : NO_POSITION;
+        int count = board.getAdapter(column).getItemCount() - (excludedRow != NO_POSITION ? 1 : 0);
+        if (operation.afterItemId == NO_ID) {
+            return 0;
+        }
+        int afterRow = board.getAdapter(column).getPositionForItemId(operation.afterItemId);
+        if (afterRow == NO_POSITION) {
+            return Math.max(0, Math.min(operation.row, count));
+        }
+        return excludedRow != NO_POSITION && excludedRow < afterRow ? afterRow : afterRow + 1;
+    }
+
+    /**
+     * Writes the operations in one sequential pass, the stream is not closed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        BinaryCodec.Writer writer = new BinaryCodec.Writer(out);
+        writer.writeInt(MAGIC);
+        writer.writeVarLong(FORMAT_VERSION);
+        writer.writeVarLong(mOperations.size());
+        for (Operation operation : mOperations) {
+            writer.writeVarLong(operation.type.ordinal());
+            switch (operation.type) {
+                case ADD:
+                case MOVE:
+                    writer.writeVarLong(BinaryCodec.zigZag(operation.itemId));
+                    writer.writeVarLong(BinaryCodec.zigZag(operation.columnId));
+                    writer.writeVarLong(BinaryCodec.zigZag(operation.afterItemId));
+                    writer.writeVarLong(operation.row);
+                    break;
+                case REMOVE:
+                case REPLACE:
+                    writer.writeVarLong(BinaryCodec.zigZag(operation.itemId));
+                    break;
+                case MOVE_COLUMN:
+                    writer.writeVarLong(BinaryCodec.zigZag(operation.columnId));
+                    writer.writeVarLong(operation.row);
+                    break;
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads operations written by {@link #writeTo} and adds them to the end of the journal. Nothing
+     * after the operations is read and the stream is not closed.
+     *
+     * @throws IOException if the stream does not contain a journal or it was written by a newer
+     * version of the format.
+     */
+    public void readFrom(InputStream in) throws IOException {
+        BinaryCodec.Reader reader = new BinaryCodec.Reader(in);
+        if (reader.readInt() != MAGIC) {
+            throw new IOException("Not a board journal");
+        }
+        long version = reader.readVarLong();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported board journal version " + version);
+        }
+
+        Type[] types = Type.values();
+        int count = reader.readCount();
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int type = reader.readCount();
+            if (type >= types.length) {
+                throw new IOException("Unknown operation " + type);
+            }
+            switch (types[type]) {
+                case ADD:
+                case MOVE:
+                    operations.add(new Operation(types[type], BinaryCodec.unZigZag(reader.readVarLong()),
+                            BinaryCodec.unZigZag(reader.readVarLong()),
+                            BinaryCodec.unZigZag(reader.readVarLong()), reader.readCount()));
+                    break;
+                case REMOVE:
+                case REPLACE:
+                    operations.add(new Operation(types[type], BinaryCodec.unZigZag(reader.readVarLong()),
+                            NO_ID, NO_ID, NO_POSITION));
+                    break;
+                case MOVE_COLUMN:
+                    operations.add(new Operation(types[type], NO_ID,
+                            BinaryCodec.unZigZag(reader.readVarLong()), NO_ID, reader.readCount()));
+                    break;
+            }
+        }
+        mOperations.addAll(operations);
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            // A byte array stream never throws
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static BoardJournal fromByteArray(byte[] bytes) throws IOException {
+        BoardJournal journal = new BoardJournal();
+        journal.readFrom(new ByteArrayInputStream(bytes));
+        return journal;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static android.support.v7.widget.RecyclerView.NO_ID;
+
+/**
+ * A replica of the item order of a board that can be edited offline and merged with other replicas,
+ * ending up with the same order on all of them no matter in which order the changes are merged.
+ * <p/>
+ * Every item has a column and an order key, see {@link DragItemAdapter#setOrderKeysEnabled}. Keys
+ * generated by a replica end with the id of the replica, so two replicas never generate the same
+ * key even when they insert at the same place. When two replicas move the same item, the move with
+ * the highest Lamport clock wins, and the highest replica id on a tie. Removed items stay removed.
+ * <p/>
+ * Keys only grow when items are inserted into the same place over and over, by about one character
+ * every five or six inserts. An adapter bound with {@link #bindAdapter} limits them to 32 characters
+ * by spreading out the keys of its column again, which is recorded as a move of every item in the
+ * column. The spread out keys only depend on the number of items, so replicas that spread out the
+ * same column at the same time give the items the same keys. Items that another replica inserts
+ * or moves into the column at the same time may end up next to another item than intended, but
+ * all replicas still end up with the same order.
+ * <p/>
+ * Only changed items are exchanged, so merging costs time in proportion to the number of changes and
+ * not to the size of the board. Every replica has to get the changes of all other replicas, changes
+ * merged from other replicas are not passed on.
+ */
+public class BoardReplica {
+    private static final int REPLICA_ID_DIGITS = 4;
+
+    /**
+     * The state of one item, changes are exchanged as the new state of the changed items.
+     */
+    public static final class Update {
+        public final long itemId;
+        public final long columnId;
+        public final String orderKey;
+        public final boolean removed;
+        public final long clock;
+        public final int replicaId;
+
+        public Update(long itemId, long columnId, String orderKey, boolean removed, long clock,
+                int replicaId) {
+            this.itemId = itemId;
+            this.columnId = columnId;
+            this.orderKey = orderKey;
+            this.removed = removed;
+            this.clock = clock;
+            this.replicaId = replicaId;
+        }
+
+        /**
+         * @return true if this state wins over the other state of the same item when merged.
+         */
+        boolean winsOver(Update other) {
+            if (removed != other.removed) {
+                return removed;
+            }
+            if (clock != other.clock) {
+                return clock > other.clock;
+            }
+            return replicaId > other.replicaId;
+        }
+    }
+
+    private static final Comparator<Update> ORDER = new Comparator<Update>() {
+        @Override
+        public int compare(Update first, Update second) {
+            int result = first.orderKey.compareTo(second.orderKey);
+            if (result == 0) {
+                result = first.replicaId < second.replicaId ? -1 : first.replicaId > second.replicaId ? 1 : 0;
+            }
+            if (result == 0) {
+                result = first.itemId < second.itemId ? -1 : first.itemId > second.itemId ? 1 : 0;
+            }
+            return result;
+        }
+    };
+
+    private final int mReplicaId;
+    private final String mKeySuffix;
+    private final HashMap<Long, Update> mItems = new HashMap<>();
+    private final LinkedHashMap<Long, Update> mChanges = new LinkedHashMap<>();
+    private long mClock;
+
+    /**
+     * @param replicaId an id that is unique for every replica of the board, between 0 and
+     * 14776335.
+     */
+    public BoardReplica(int replicaId) {
+        int base = OrderKeys.DIGITS.length();
+        StringBuilder suffix = new StringBuilder();
+        int id = replicaId;
+        for (int i = 0; i < REPLICA_ID_DIGITS; i++) {
+            suffix.insert(0, OrderKeys.DIGITS.charAt(id % base));
+            id /= base;
+        }
+        if (replicaId < 0 || id != 0) {
+            throw new IllegalArgumentException("Invalid replica id " + replicaId);
+        }
+        // The last digit keeps keys from ending with a 0
+        suffix.append(OrderKeys.DIGITS.charAt(1));
+        mReplicaId = replicaId;
+        mKeySuffix = suffix.toString();
+    }
+
+    public int getReplicaId() {
+        return mReplicaId;
+    }
+
+    /**
+     * @return a key between the keys, either of them can be null for no bound, that no other replica
+     * can generate. It is 5 characters longer than a key from {@link OrderKeys}, and there is no
+     * limit to how long keys inserted into the same place get unless they are spread out again.
+     */
+    public String generateKey(String before, String after) {
+        // Generate below the key after without its last 5 characters when the key before allows it,
+        // so keys inserted before the same item do not grow by a whole replica suffix every time
+        String bound = after;
+        if (after != null && after.length() > mKeySuffix.length()) {
+            String prefix = after.substring(0, after.length() - mKeySuffix.length());
+            if (prefix.charAt(prefix.length() - 1) != OrderKeys.DIGITS.charAt(0)
+                    && (before == null || before.compareTo(prefix) < 0)) {
+                bound = prefix;
+            }
+        }
+        String key = OrderKeys.between(before, bound);
+        while (after != null && after.startsWith(key)) {
+            // The suffix would sort the key after a key it is a prefix of
+            key = OrderKeys.between(key, after);
+        }
+        return key + mKeySuffix;
+    }
+
+    /**
+     * @return count keys in ascending order between the keys that no other replica can generate. All
+     * keys start with the first key, so items that two replicas insert into the same place at the
+     * same time stay together and are not mixed with each other when merged.
+     */
+    public String[] generateKeys(String before, String after, int count) {
+        String[] keys = new String[count];
+        if (count == 0) {
+            return keys;
+        }
+        keys[0] = generateKey(before, after);
+        String[] extensions = OrderKeys.between(null, null, count - 1);
+        for (int i = 1; i < count; i++) {
+            keys[i] = keys[0] + extensions[i - 1];
+        }
+        return keys;
+    }
+
+    /**
+     * Makes the adapter generate keys with this replica and records the keys of added and moved
+     * items in the column, one change per item that got a new key. The adapter should return
+     * {@link #getOrderKey} from {@link DragItemAdapter#getStoredOrderKey} so merged items keep their
+     * keys when the item list is set again, and removed items must be removed with {@link #remove}.
+     */
+    public void bindAdapter(final DragItemAdapter<?, ?> adapter, final long columnId) {
+        adapter.setOrderKeyGenerator(new DragItemAdapter.OrderKeyGenerator() {
+            @Override
+            public String between(String before, String after) {
+                return generateKey(before, after);
+            }
+
+            @Override
+            public String[] between(String before, String after, int count) {
+                return generateKeys(before, after, count);
+            }
+        });
+        adapter.setOrderKeyListener(new DragItemAdapter.OrderKeyListener() {
+            @Override
+            public void onOrderKeyChanged(long itemId, String orderKey) {
+                put(itemId, columnId, orderKey);
+            }
+
+            @Override
+            public void onOrderKeysReassigned() {
+                // The dragged item has no key and is recorded when it is dropped
+                for (int pos = 0; pos < adapter.getItemCount(); pos++) {
+                    put(adapter.getItemId(pos), columnId, adapter.getOrderKey(pos));
+                }
+            }
+        });
+        adapter.setOrderKeysEnabled(true);
+    }
+
+    /**
+     * Adds an item or moves it to the column and key. Does nothing if the item is already there or
+     * has been removed.
+     */
+    public void put(long itemId, long columnId, String orderKey) {
+        Update current = mItems.get(itemId);
+        if (orderKey == null || current != null && (current.removed
+                || current.columnId == columnId && current.orderKey.equals(orderKey))) {
+            return;
+        }
+        record(new Update(itemId, columnId, orderKey, false, ++mClock, mReplicaId));
+    }
+
+    public void remove(long itemId) {
+        Update current = mItems.get(itemId);
+        if (current == null || !current.removed) {
+            record(new Update(itemId, current != null ? current.columnId : NO_ID,
+                    current != null ? current.orderKey : "", true, ++mClock, mReplicaId));
+        }
+    }
+
+    private void record(Update update) {
+        mItems.put(update.itemId, update);
+        mChanges.remove(update.itemId);
+        mChanges.put(update.itemId, update);
+    }
+
+    /**
+     * @return the changes done on this replica since the last call, at most one per item. Send them
+     * to the other replicas and merge them there.
+     */
+    public List<Update> takeChanges() {
+        List<Update> changes = new ArrayList<>(mChanges.values());
+        mChanges.clear();
+        return changes;
+    }
+
+    /**
+     * Merges changes from another replica, the order of the merged changes does not matter.
+     *
+     * @return the number of items that have changed column, key or have been removed.
+     */
+    public int merge(Collection<Update> updates) {
+        int changed = 0;
+        for (Update update : updates) {
+            mClock = Math.max(mClock, update.clock);
+            Update current = mItems.get(update.itemId);
+            if (current == null || update.winsOver(current)) {
+                mItems.put(update.itemId, update);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public boolean contains(long itemId) {
+        Update current = mItems.get(itemId);
+        return current != null && !current.removed;
+    }
+
+    /**
+     * @return the column of the item or NO_ID if it is not in the replica.
+     */
+    public long getColumnId(long itemId) {
+        Update current = mItems.get(itemId);
+        return current != null && !current.removed ? current.columnId : NO_ID;
+    }
+
+    /**
+     * @return the order key of the item or null if it is not in the replica.
+     */
+    public String getOrderKey(long itemId) {
+        Update current = mItems.get(itemId);
+        return current != null && !current.removed ? current.orderKey : null;
+    }
+
+    /**
+     * @return the ids of the items in the column in order, use it to set the item list of the column
+     * after merging.
+     */
+    public List<Long> getItemIds(long columnId) {
+        List<Update> items = new ArrayList<>();
+        for (Update update : mItems.values()) {
+            if (!update.removed && update.columnId == columnId) {
+                items.add(update);
+            }
+        }
+        Collections.sort(items, ORDER);
+
+        List<Long> itemIds = new ArrayList<>(items.size());
+        for (Update update : items) {
+            itemIds.add(update.itemId);
+        }
+        return itemIds;
+    }
+}
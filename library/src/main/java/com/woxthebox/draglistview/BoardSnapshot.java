@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static android.support.v7.widget.RecyclerView.NO_ID;
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+
+/**
+ * An immutable copy of the structure of a {@link BoardView}, the columns in order and the ids of
+ * the items in every column. Taken with {@link BoardView#getSnapshot()} on the main thread and safe
+ * to read on any thread.
+ * <p/>
+ * The item ids of a column are only copied when the column has changed since the last snapshot,
+ * unchanged columns share their ids with earlier snapshots.
+ * <p/>
+ * A snapshot can be written to a stream or a Parcel in a compact binary format and read back to
+ * rebuild the board with {@link BoardView#restoreBoard}.
+ */
+public final class BoardSnapshot implements Parcelable {
+
+    /**
+     * The version of the binary format written by {@link #writeTo}, snapshots written with an older
+     * version can always be read.
+     */
+    public static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x444c5642;
+
+    public static final class Column {
+        private final long mColumnId;
+        private final long[] mItemIds;
+        private final long mScrollItemId;
+        private final int mScrollOffset;
+
+        Column(long columnId, long[] itemIds, long scrollItemId, int scrollOffset) {
+            mColumnId = columnId;
+            mItemIds = itemIds;
+            mScrollItemId = scrollItemId;
+            mScrollOffset = scrollOffset;
+        }
+
+        /**
+         * @return the id of the column, see {@link BoardView#getColumnId(int)}.
+         */
+        public long getColumnId() {
+            return mColumnId;
+        }
+
+        public int getItemCount() {
+            return mItemIds.length;
+        }
+
+        public long getItemId(int row) {
+            return mItemIds[row];
+        }
+
+        /**
+         * @return a copy of the item ids in the column.
+         */
+        public long[] getItemIds() {
+            return mItemIds.clone();
+        }
+
+        /**
+         * @return the row of the item with the id or NO_POSITION, this is a linear search.
+         */
+        public int indexOf(long itemId) {
+            for (int i = 0; i < mItemIds.length; i++) {
+                if (mItemIds[i] == itemId) {
+                    return i;
+                }
+            }
+            return NO_POSITION;
+        }
+
+        /**
+         * @return the id of the first visible item in the column or NO_ID if the column was not laid
+         * out when the snapshot was taken.
+         */
+        public long getScrollItemId() {
+            return mScrollItemId;
+        }
+
+        /**
+         * @return the offset of the first visible item from the top of the list.
+         */
+        public int getScrollOffset() {
+            return mScrollOffset;
+        }
+    }
+
+    private final Column[] mColumns;
+
+    BoardSnapshot(Column[] columns) {
+        mColumns = columns;
+    }
+
+    public int getColumnCount() {
+        return mColumns.length;
+    }
+
+    public Column getColumn(int column) {
+        return mColumns[column];
+    }
+
+    public int getItemCount() {
+        int count = 0;
+        for (Column column : mColumns) {
+            count += column.getItemCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the column has the same id and items in both snapshots. Columns that have not
+     * changed between the snapshots share their ids and are compared by reference.
+     */
+    public boolean isColumnUnchanged(BoardSnapshot other, int column) {
+        return other != null && column < mColumns.length && column < other.mColumns.length
+                && mColumns[column].mColumnId == other.mColumns[column].mColumnId
+                && (mColumns[column].mItemIds == other.mColumns[column].mItemIds
+                || Arrays.equals(mColumns[column].mItemIds, other.mColumns[column].mItemIds));
+    }
+
+    /**
+     * Writes the snapshot in one sequential pass. Item ids are written as variable length
+     * differences to the previous id, so consecutive ids take a byte each. The stream is not closed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        BinaryCodec.Writer writer = new BinaryCodec.Writer(out);
+        writer.writeInt(MAGIC);
+        writer.writeVarLong(FORMAT_VERSION);
+        writer.writeVarLong(mColumns.length);
+        for (Column column : mColumns) {
+            writer.writeVarLong(BinaryCodec.zigZag(column.mColumnId));
+            writer.writeVarLong(BinaryCodec.zigZag(column.mScrollItemId));
+            writer.writeVarLong(BinaryCodec.zigZag(column.mScrollOffset));
+            writer.writeVarLong(column.mItemIds.length);
+            long previousId = 0;
+            for (long itemId : column.mItemIds) {
+                writer.writeVarLong(BinaryCodec.zigZag(itemId - previousId));
+                previousId = itemId;
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo} in one sequential pass. Nothing after the snapshot
+     * is read and the stream is not closed, use a buffered stream when reading from a file.
+     *
+     * @throws IOException if the stream does not contain a snapshot or it was written by a newer
+     * version of the format.
+     */
+    public static BoardSnapshot readFrom(InputStream in) throws IOException {
+        BinaryCodec.Reader reader = new BinaryCodec.Reader(in);
+        if (reader.readInt() != MAGIC) {
+            throw new IOException("Not a board snapshot");
+        }
+        long version = reader.readVarLong();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported board snapshot version " + version);
+        }
+
+        // Counts are not trusted for allocation, the arrays grow as the data is read
+        int columnCount = reader.readCount();
+        List<Column> columns = new ArrayList<>(BinaryCodec.initialCapacity(columnCount));
+        for (int i = 0; i < columnCount; i++) {
+            long columnId = BinaryCodec.unZigZag(reader.readVarLong());
+            long scrollItemId = BinaryCodec.unZigZag(reader.readVarLong());
+            int scrollOffset = (int) BinaryCodec.unZigZag(reader.readVarLong());
+            int itemCount = reader.readCount();
+            long[] itemIds = new long[BinaryCodec.initialCapacity(itemCount)];
+            long previousId = 0;
+            for (int j = 0; j < itemCount; j++) {
+                if (j == itemIds.length) {
+                    itemIds = Arrays.copyOf(itemIds, (int) Math.min(itemCount, 2L * itemIds.length));
+                }
+                itemIds[j] = previousId + BinaryCodec.unZigZag(reader.readVarLong());
+                previousId = itemIds[j];
+            }
+            columns.add(new Column(columnId, itemIds, scrollItemId, scrollOffset));
+        }
+        return new BoardSnapshot(columns.toArray(new Column[columns.size()]));
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            // A byte array stream never throws
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static BoardSnapshot fromByteArray(byte[] bytes) throws IOException {
+        return readFrom(new ByteArrayInputStream(bytes));
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeByteArray(toByteArray());
+    }
+
+    public static final Parcelable.Creator<BoardSnapshot> CREATOR =
+            new Parcelable.Creator<BoardSnapshot>() {
+                public BoardSnapshot createFromParcel(Parcel in) {
+                    try {
+                        return fromByteArray(in.createByteArray());
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                }
+
+                public BoardSnapshot[] newArray(int size) {
+                    return new BoardSnapshot[size];
+                }
+            };
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.view.ViewCompat;
+import android.util.SparseArray;
+
+import java.util.LinkedHashMap;
+
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+
+/**
+ * Takes item changes for a {@link BoardView} from any thread and applies them once per frame. All
+ * changes for the same item id between two frames are merged into one, so a feed that updates a
+ * card many times per second only rebinds it once per frame. The first visible item of every
+ * changed column stays where it is on screen when items are added or removed above it.
+ * <p/>
+ * Get the sink with {@link BoardView#getUpdateSink()}. Changes that arrive while an item is dragged
+ * are kept until the drag has ended.
+ */
+public final class BoardUpdateSink {
+
+    private static final class Update {
+        boolean add;
+        boolean remove;
+        Object item;
+        int column = NO_POSITION;
+        int row;
+    }
+
+    private static final class ScrollAnchor {
+        final long itemId;
+        final int row;
+        final int offset;
+
+        ScrollAnchor(long itemId, int row, int offset) {
+            this.itemId = itemId;
+            this.row = row;
+            this.offset = offset;
+        }
+    }
+
+    private final BoardView mBoardView;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Object mLock = new Object();
+    private LinkedHashMap<Long, Update> mUpdates = new LinkedHashMap<>();
+    private boolean mScheduled;
+    private boolean mWaitingForDrag;
+
+    private final Runnable mScheduleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            ViewCompat.postOnAnimation(mBoardView, mApplyRunnable);
+        }
+    };
+
+    private final Runnable mApplyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyUpdates();
+        }
+    };
+
+    BoardUpdateSink(BoardView boardView) {
+        mBoardView = boardView;
+    }
+
+    /**
+     * Adds an item to the column at row, or at the end of the column if row is bigger than the
+     * number of items when the change is applied. If an item with the id is already on the board
+     * when the change is applied, it is replaced with the item and moved to the column and row.
+     */
+    public void addItem(int column, int row, long itemId, Object item) {
+        synchronized (mLock) {
+            Update update = getUpdate(itemId);
+            // Removed and added again is the same as a change and a move of the existing item
+            update.add = true;
+            update.remove = false;
+            update.item = item;
+            update.column = column;
+            update.row = row;
+            schedule();
+        }
+    }
+
+    /**
+     * Replaces the item with the id, only the latest item is applied if it is replaced several
+     * times in the same frame.
+     */
+    public void replaceItem(long itemId, Object item) {
+        synchronized (mLock) {
+            Update update = getUpdate(itemId);
+            if (!update.remove) {
+                update.item = item;
+                schedule();
+            }
+        }
+    }
+
+    public void moveItem(long itemId, int toColumn, int toRow) {
+        synchronized (mLock) {
+            Update update = getUpdate(itemId);
+            if (!update.remove) {
+                update.column = toColumn;
+                update.row = toRow;
+                schedule();
+            }
+        }
+    }
+
+    public void removeItem(long itemId) {
+        synchronized (mLock) {
+            // The item may be on the board even if it was added since the last frame
+            Update update = getUpdate(itemId);
+            update.add = false;
+            update.remove = true;
+            update.item = null;
+            update.column = NO_POSITION;
+            schedule();
+        }
+    }
+
+    /**
+     * @return the number of items with changes that have not been applied yet.
+     */
+    public int getPendingCount() {
+        synchronized (mLock) {
+            return mUpdates.size();
+        }
+    }
+
+    /**
+     * Drops all changes that have not been applied yet.
+     */
+    public void clear() {
+        synchronized (mLock) {
+            mUpdates.clear();
+        }
+    }
+
+    void onDragEnded() {
+        synchronized (mLock) {
+            if (mWaitingForDrag) {
+                mWaitingForDrag = false;
+                schedule();
+            }
+        }
+    }
+
+    private Update getUpdate(long itemId) {
+        Update update = mUpdates.get(itemId);
+        if (update == null) {
+            update = new Update();
+            mUpdates.put(itemId, update);
+        }
+        return update;
+    }
+
+    private void schedule() {
+        if (mScheduled || mWaitingForDrag || mUpdates.isEmpty()) {
+            return;
+        }
+        mScheduled = true;
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            mScheduleRunnable.run();
+        } else {
+            mMainHandler.post(mScheduleRunnable);
+        }
+    }
+
+    private void applyUpdates() {
+        LinkedHashMap<Long, Update> updates;
+        synchronized (mLock) {
+            mScheduled = false;
+            if (mBoardView.isDragging()) {
+                mWaitingForDrag = true;
+                return;
+            }
+            updates = mUpdates;
+            mUpdates = new LinkedHashMap<>();
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        SparseArray<ScrollAnchor> anchors = getScrollAnchors();
+        mBoardView.beginBatch();
+        try {
+            for (Long itemId : updates.keySet()) {
+                Update update = updates.get(itemId);
+                BoardView.ItemPosition position = mBoardView.findItem(itemId);
+                if (update.remove) {
+                    if (position != null) {
+                        mBoardView.removeItem(position.column, position.row);
+                    }
+                    continue;
+                }
+                // An add of an item that is already on the board is applied as a change and a move
+                if (position == null) {
+                    if (update.add && update.column >= 0
+                            && update.column < mBoardView.getColumnCount()) {
+                        int count = mBoardView.getAdapter(update.column).getItemCount();
+                        mBoardView.addItem(update.column, Math.max(0, Math.min(update.row, count)),
+                                update.item, false);
+                    }
+                    continue;
+                }
+                if (update.item != null) {
+                    mBoardView.replaceItem(position.column, position.row, update.item, false);
+                }
+                if (update.column >= 0 && update.column < mBoardView.getColumnCount()) {
+                    int count = mBoardView.getAdapter(update.column).getItemCount();
+                    if (update.column == position.column) {
+                        count--;
+                    }
+                    mBoardView.moveItem(position.column, position.row, update.column,
+                            Math.max(0, Math.min(update.row, count)), false);
+                }
+            }
+        } finally {
+            mBoardView.endBatch();
+        }
+        restoreScrollAnchors(anchors);
+    }
+
+    /**
+     * @return the first visible item of every column with its offset from the top of the list, for
+     * detached columns the item that was first when they were detached.
+     */
+    private SparseArray<ScrollAnchor> getScrollAnchors() {
+        SparseArray<ScrollAnchor> anchors = new SparseArray<>();
+        for (int column = 0; column < mBoardView.getColumnCount(); column++) {
+            DragItemRecyclerView list = mBoardView.mLists.get(column);
+            long itemId = list.getFirstVisibleItemId();
+            int row = mBoardView.getAdapter(column).getPositionForItemId(itemId);
+            if (row != NO_POSITION) {
+                anchors.put(column, new ScrollAnchor(itemId, row, list.getFirstVisibleItemOffset()));
+            }
+        }
+        return anchors;
+    }
+
+    private void restoreScrollAnchors(SparseArray<ScrollAnchor> anchors) {
+        for (int i = 0; i < anchors.size(); i++) {
+            int column = anchors.keyAt(i);
+            ScrollAnchor anchor = anchors.valueAt(i);
+            if (column >= mBoardView.getColumnCount()) {
+                continue;
+            }
+            int row = mBoardView.getAdapter(column).getPositionForItemId(anchor.itemId);
+            if (row != NO_POSITION && row != anchor.row) {
+                mBoardView.mLists.get(column).scrollToItemWithOffset(anchor.itemId, anchor.offset);
+            }
+        }
+    }
+}
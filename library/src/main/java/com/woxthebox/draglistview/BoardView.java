@@ -26,22 +26,25 @@ import android.graphics.Point;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.v4.view.ViewCompat;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.DefaultItemAnimator;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.util.SparseArray;
-import android.util.TypedValue;
+import android.util.SparseBooleanArray;
 import android.view.DragEvent;
 import android.view.GestureDetector;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
 import android.view.animation.DecelerateInterpolator;
 import android.widget.FrameLayout;
 import android.widget.HorizontalScrollView;
@@ -51,7 +54,9 @@ import android.widget.Scroller;
 import com.woxthebox.draglistview.utils.DefaultItemClickListener;
 import com.woxthebox.draglistview.utils.RecyclerItemTouchListener;
 import java.util.ArrayList;
+import java.util.List;
 
+import static android.support.v7.widget.RecyclerView.NO_ID;
 import static android.support.v7.widget.RecyclerView.NO_POSITION;
 
 public class BoardView extends HorizontalScrollView implements AutoScroller.AutoScrollListener {
@@ -76,10 +81,33 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         boolean canDropItemAtPosition(int oldColumn, int oldRow, int newColumn, int newRow);
     }
 
+    public interface BoardChangeListener {
+        /**
+         * Called once after a change, or a batch of changes, done through the board with the
+         * columns that had items added, removed, moved or replaced in ascending order.
+         */
+        void onColumnsChanged(int[] columns);
+
+        /**
+         * Called for every item that {@link #submitBoard} found in another column than before.
+         */
+        void onItemMovedColumn(long itemId, int fromColumn, int toColumn);
+    }
+
     public enum ColumnSnapPosition {
         LEFT, CENTER, RIGHT
     }
 
+    public static final class ItemPosition {
+        public final int column;
+        public final int row;
+
+        ItemPosition(int column, int row) {
+            this.column = column;
+            this.row = row;
+        }
+    }
+
     private static final int SCROLL_ANIMATION_DURATION_DRAG = 1000;
     private final int SCROLL_ANIMATION_DURATION_DEFAULT = 325;
     private int SCROLL_ANIMATION_DURATION = SCROLL_ANIMATION_DURATION_DEFAULT;
@@ -124,6 +152,29 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     private boolean isScaled;
     private int mActiveFeature = 0;
     private long lastTouchTime = -1;
+    private LongIntMap mItemColumns = new LongIntMap();
+    private boolean mItemColumnsDirty = true;
+    private boolean mColumnVirtualizationEnabled;
+    private int mOffscreenColumnLimit = 1;
+    private boolean mAttachColumnsPosted;
+    private boolean mDetachColumnsScheduled;
+    private BoardViewPool mViewPool;
+    private boolean mDragGhostEnabled;
+    private BoardChangeListener mBoardChangeListener;
+    private int mBatchDepth;
+    private final SparseBooleanArray mBatchColumns = new SparseBooleanArray();
+    private long mBatchScrollItemId = NO_ID;
+    private final ArrayList<DragItemAdapter> mBatchAdapters = new ArrayList<>();
+    private final ArrayList<PendingOperation> mPendingOperations = new ArrayList<>();
+    private BoardUpdateSink mUpdateSink;
+    private long mNextColumnId;
+    private BoardWriteBehind mWriteBehind;
+    private BoardJournal mJournal;
+    private boolean mJournalSuspended;
+    private boolean mMovingItem;
+    private int mSubmitBoardGeneration;
+    private List<? extends List<?>> mPendingBoard;
+    private DragItemRecyclerView mGhostRecyclerView;
 
     public BoardView(Context context) {
         super(context);
@@ -188,6 +239,42 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
             mSavedState = null;
         }
         mHasLaidOut = true;
+        scheduleAttachedColumnsUpdate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(mAttachColumnsRunnable);
+        mAttachColumnsPosted = false;
+        if (mDetachColumnsScheduled) {
+            Looper.myQueue().removeIdleHandler(mDetachColumnsHandler);
+            mDetachColumnsScheduled = false;
+        }
+        if (mWriteBehind != null) {
+            mWriteBehind.flush();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        // The window is hidden when the app goes to the background, store moves before it is killed
+        if (visibility != VISIBLE && mWriteBehind != null) {
+            mWriteBehind.flush();
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateViewPoolSize();
+    }
+
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        scheduleAttachedColumnsUpdate();
     }
 
     @Override
@@ -236,9 +323,13 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
                     mAutoScroller.stopAutoScroll();
+                    if (mGhostRecyclerView != null) {
+                        moveDragItemToGhostList();
+                    }
                     mCurrentRecyclerView.onDragEnded();
-                    if (snapToColumnWhenScrolling()) {
-                        scrollToColumn(getColumnOfList(mCurrentRecyclerView), true);
+                    int column = getColumnOfList(mCurrentRecyclerView);
+                    if (snapToColumnWhenScrolling() && column != NO_POSITION) {
+                        scrollToColumn(column, true);
                     }
                     invalidate();
                     break;
@@ -285,8 +376,8 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
             // If auto scrolling at the same time as the scroller is running,
             // then update the drag item position to prevent stuttering item
             if (mAutoScroller.isAutoScrolling()) {
-                mDragItem.setPosition(getListTouchX(mCurrentRecyclerView),
-                        getListTouchY(mCurrentRecyclerView));
+                DragItemRecyclerView list = getDragTargetList();
+                mDragItem.setPosition(getListTouchX(list), getListTouchY(list));
             }
 
             ViewCompat.postInvalidateOnAnimation(this);
@@ -325,10 +416,13 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     private void updateScrollPosition() {
         // Updated event to scrollview coordinates
         DragItemRecyclerView currentList = getCurrentRecyclerView(mTouchX + getScrollX());
-        if (mCurrentRecyclerView != currentList) {
+        if (mDragGhostEnabled) {
+            updateGhostList(currentList);
+        } else if (mCurrentRecyclerView != currentList) {
             int oldColumn = getColumnOfList(mCurrentRecyclerView);
             int newColumn = getColumnOfList(currentList);
             long itemId = mCurrentRecyclerView.getDragItemId();
+            currentList.reattachAdapter();
 
             // Check if it is ok to drop the item in the new column first
             int newPosition = currentList.getDragPositionForY(getListTouchY(currentList));
@@ -336,6 +430,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                     mDragStartRow, newColumn, newPosition)) {
                 Object item = mCurrentRecyclerView.removeDragItemAndEnd();
                 if (item != null) {
+                    updateItemColumn(itemId, newColumn);
                     mCurrentRecyclerView = currentList;
                     mCurrentRecyclerView.addDragItemAndStart(getListTouchY(mCurrentRecyclerView),
                             item, itemId);
@@ -350,18 +445,97 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         }
 
         // Updated event to list coordinates
-        mCurrentRecyclerView.onDragging(getListTouchX(mCurrentRecyclerView),
-                getListTouchY(mCurrentRecyclerView));
+        if (mGhostRecyclerView != null) {
+            mDragItem.setPosition(getListTouchX(mGhostRecyclerView),
+                    getListTouchY(mGhostRecyclerView));
+            mGhostRecyclerView.updateGhost(getListTouchY(mGhostRecyclerView));
+            onItemDragging(getColumnOfList(mGhostRecyclerView),
+                    mGhostRecyclerView.getGhostPosition());
+        } else {
+            mCurrentRecyclerView.onDragging(getListTouchX(mCurrentRecyclerView),
+                    getListTouchY(mCurrentRecyclerView));
+        }
 
         float scrollEdge = getResources().getDisplayMetrics().widthPixels * 0.14f;
         if (mTouchX > getWidth() - scrollEdge && getScrollX() < mColumnLayout.getWidth()) {
-            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT);
+            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT,
+                    (mTouchX - (getWidth() - scrollEdge)) / scrollEdge);
         } else if (mTouchX < scrollEdge && getScrollX() > 0) {
-            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT);
+            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT,
+                    (scrollEdge - mTouchX) / scrollEdge);
         } else {
             mAutoScroller.stopAutoScroll();
         }
-        invalidate();
+    }
+
+    /**
+     * Moves the ghost to the list under the touch. The dragged item stays in the adapter of the list
+     * it is dragged from, other lists only show a gap where it would be dropped.
+     */
+    private void updateGhostList(DragItemRecyclerView currentList) {
+        DragItemRecyclerView ghostList = currentList != mCurrentRecyclerView ? currentList : null;
+        if (ghostList == mGhostRecyclerView) {
+            return;
+        }
+
+        if (ghostList != null) {
+            ghostList.reattachAdapter();
+            ghostList.startGhost(getListTouchY(ghostList),
+                    mDragItem.getDragItemView().getMeasuredHeight());
+            if (ghostList.getGhostPosition() == NO_POSITION) {
+                // The item can't be dropped at the touch position in that column
+                ghostList.endGhost();
+                return;
+            }
+        }
+        if (mGhostRecyclerView != null) {
+            mGhostRecyclerView.endGhost();
+        }
+        mCurrentRecyclerView.stopDragAutoScroll();
+        mGhostRecyclerView = ghostList;
+
+        DragItemRecyclerView list = getDragTargetList();
+        mDragItem.setOffset(((View) list.getParent()).getLeft(), list.getTop());
+    }
+
+    /**
+     * Moves the dragged item from the list it was dragged from to the ghost position, this is the
+     * only adapter change done for a drag to another column when ghosts are used.
+     */
+    private void moveDragItemToGhostList() {
+        DragItemRecyclerView ghostList = mGhostRecyclerView;
+        mGhostRecyclerView = null;
+        int oldColumn = getColumnOfList(mCurrentRecyclerView);
+        int newColumn = getColumnOfList(ghostList);
+        int position = ghostList.getGhostPosition();
+        long itemId = mCurrentRecyclerView.getDragItemId();
+        ghostList.endGhost();
+
+        Object item = mCurrentRecyclerView.removeDragItemAndEnd();
+        if (item != null) {
+            updateItemColumn(itemId, newColumn);
+            mCurrentRecyclerView = ghostList;
+            mCurrentRecyclerView.addDragItemAtPositionAndStart(position, item, itemId);
+            if (mBoardListener != null) {
+                mBoardListener.onItemChangedColumn(oldColumn, newColumn);
+            }
+        } else {
+            mDragItem.setOffset(((View) mCurrentRecyclerView.getParent()).getLeft(),
+                    mCurrentRecyclerView.getTop());
+        }
+    }
+
+    private DragItemRecyclerView getDragTargetList() {
+        return mGhostRecyclerView != null ? mGhostRecyclerView : mCurrentRecyclerView;
+    }
+
+    private void onItemDragging(int column, int row) {
+        boolean positionChanged = column != mLastDragColumn || row != mLastDragRow;
+        if (mBoardListener != null && positionChanged) {
+            mLastDragColumn = column;
+            mLastDragRow = row;
+            mBoardListener.onItemChangedPosition(mDragStartColumn, mDragStartRow, column, row);
+        }
     }
 
     private float getListTouchX(DragItemRecyclerView list) {
@@ -373,35 +547,130 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     }
 
     private DragItemRecyclerView getCurrentRecyclerView(float x) {
-        for (DragItemRecyclerView list : mLists) {
-            View parent = (View) list.getParent();
-            if (parent.getLeft() <= x && parent.getRight() > x) {
-                return list;
-            }
-        }
-        return mCurrentRecyclerView;
+        int column = getColumnAt(x);
+        return column != NO_POSITION ? mLists.get(column) : mCurrentRecyclerView;
     }
 
+    /**
+     * @return the column of the list or NO_POSITION if it is not in the board.
+     */
     private int getColumnOfList(DragItemRecyclerView list) {
-        int column = 0;
-        for (int i = 0; i < mLists.size(); i++) {
-            RecyclerView tmpList = mLists.get(i);
-            if (tmpList == list) {
-                column = i;
-            }
+        int column = list.getColumn();
+        return column >= 0 && column < mLists.size() && mLists.get(column) == list ? column
+                : NO_POSITION;
+    }
+
+    /**
+     * Stores the column index on the lists from fromColumn, call it when lists are added, removed or
+     * moved.
+     */
+    void updateListColumns(int fromColumn) {
+        for (int column = fromColumn; column < mLists.size(); column++) {
+            mLists.get(column).setColumn(column);
         }
-        return column;
     }
 
     private int getCurrentColumn(float posX) {
+        int column = getColumnAt(posX);
+        return column != NO_POSITION ? column : 0;
+    }
+
+    /**
+     * @return the column at x in board coordinates or NO_POSITION if x is between or outside the
+     * columns. Works the same whether or not the list of the column is attached to its adapter.
+     */
+    private int getColumnAt(float x) {
+        int column = findColumnEndingAfter(x);
+        if (column < mLists.size() && getColumnView(column).getLeft() <= x) {
+            return column;
+        }
+        return NO_POSITION;
+    }
+
+    /**
+     * Binary search for the first column with its right edge after x, relies on the columns being
+     * laid out left to right in column order.
+     */
+    private int findColumnEndingAfter(float x) {
+        int low = 0;
+        int high = mLists.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getColumnView(middle).getRight() > x) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private View getColumnView(int column) {
+        return (View) mLists.get(column).getParent();
+    }
+
+    private final Runnable mAttachColumnsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mAttachColumnsPosted = false;
+            updateAttachedColumns(false);
+        }
+    };
+
+    private final MessageQueue.IdleHandler mDetachColumnsHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mDetachColumnsScheduled = false;
+            updateAttachedColumns(true);
+            return false;
+        }
+    };
+
+    /**
+     * Posts an update of the attached columns, changing adapters in the middle of a scroll or layout
+     * pass would request a new layout while one is running.
+     */
+    private void scheduleAttachedColumnsUpdate() {
+        if (!mColumnVirtualizationEnabled || mAttachColumnsPosted) {
+            return;
+        }
+        mAttachColumnsPosted = true;
+        post(mAttachColumnsRunnable);
+    }
+
+    /**
+     * Attaches the adapters of the columns within the offscreen limit of the visible columns. Other
+     * columns are detached so their item views are recycled, but only when detach is true. Otherwise
+     * the detach is left to when the main thread is idle, as a column coming into view is more urgent
+     * than one leaving.
+     */
+    private void updateAttachedColumns(boolean detach) {
+        if (!mColumnVirtualizationEnabled || !mHasLaidOut || mLists.isEmpty()
+                || mColumnLayout.isLayoutRequested()) {
+            return;
+        }
+
+        int left = getScrollX();
+        int right = left + getWidth() - 1;
+        int firstVisible = findColumnEndingAfter(left);
+        int lastVisible = findColumnEndingAfter(right);
+        if (lastVisible == mLists.size() || getColumnView(lastVisible).getLeft() > right) {
+            lastVisible--;
+        }
+
+        int first = firstVisible - mOffscreenColumnLimit;
+        int last = lastVisible + mOffscreenColumnLimit;
         for (int i = 0; i < mLists.size(); i++) {
-            RecyclerView list = mLists.get(i);
-            View parent = (View) list.getParent();
-            if (parent.getLeft() <= posX && parent.getRight() > posX) {
-                return i;
+            DragItemRecyclerView list = mLists.get(i);
+            if (i >= first && i <= last) {
+                list.reattachAdapter();
+            } else if (detach) {
+                list.detachAdapter();
+            } else if (!list.isAdapterDetached() && !mDetachColumnsScheduled) {
+                mDetachColumnsScheduled = true;
+                Looper.myQueue().addIdleHandler(mDetachColumnsHandler);
             }
         }
-        return 0;
     }
 
     private int getClosestSnapColumn() {
@@ -446,7 +715,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         return mSnapToColumnWhenDragging && (isPortrait || mSnapToColumnInLandscape);
     }
 
-    private boolean isDragging() {
+    boolean isDragging() {
         return mCurrentRecyclerView != null && mCurrentRecyclerView.isDragging();
     }
 
@@ -459,7 +728,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
 
     public DragItemAdapter getAdapter(int column) {
         if (column >= 0 && column < mLists.size()) {
-            return (DragItemAdapter) mLists.get(column).getAdapter();
+            return mLists.get(column).getDragItemAdapter();
         }
         return null;
     }
@@ -467,14 +736,14 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     public int getItemCount() {
         int count = 0;
         for (DragItemRecyclerView list : mLists) {
-            count += list.getAdapter().getItemCount();
+            count += list.getDragItemAdapter().getItemCount();
         }
         return count;
     }
 
     public int getItemCount(int column) {
         if (mLists.size() > column) {
-            return mLists.get(column).getAdapter().getItemCount();
+            return mLists.get(column).getDragItemAdapter().getItemCount();
         }
         return 0;
     }
@@ -483,96 +752,696 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         return mLists.size();
     }
 
+    /**
+     * @return an id that identifies the column for as long as it is in the board, also when columns
+     * are moved. NO_ID if there is no such column.
+     */
+    public long getColumnId(int column) {
+        if (column >= 0 && column < mLists.size()) {
+            return mLists.get(column).getColumnId();
+        }
+        return NO_ID;
+    }
+
+    /**
+     * @return the column with the id or NO_POSITION if there is no such column.
+     */
+    public int findColumn(long columnId) {
+        for (int i = 0; i < mLists.size(); i++) {
+            if (mLists.get(i).getColumnId() == columnId) {
+                return i;
+            }
+        }
+        return NO_POSITION;
+    }
+
+    long nextColumnId() {
+        return mNextColumnId++;
+    }
+
+    /**
+     * Takes an immutable snapshot of the columns and the item ids in every column that can be read on
+     * any thread. Only the columns that have changed since the last snapshot are copied, so taking a
+     * snapshot of a board where a few items have moved is cheap. Items changed without going through
+     * the adapters are not seen until the column is changed through its adapter.
+     */
+    public BoardSnapshot getSnapshot() {
+        BoardSnapshot.Column[] columns = new BoardSnapshot.Column[mLists.size()];
+        for (int i = 0; i < columns.length; i++) {
+            DragItemRecyclerView list = mLists.get(i);
+            long scrollItemId = list.getFirstVisibleItemId();
+            int scrollOffset = scrollItemId != NO_ID ? list.getFirstVisibleItemOffset() : 0;
+            columns[i] = new BoardSnapshot.Column(list.getColumnId(),
+                    list.getDragItemAdapter().getItemIdSnapshot(), scrollItemId, scrollOffset);
+        }
+        return new BoardSnapshot(columns);
+    }
+
+    /**
+     * Adds the columns of a snapshot to a board, see {@link #restoreBoard}.
+     */
+    public interface ColumnRestorer {
+        /**
+         * Adds one column with {@link #addColumnList}, its adapter must hold the items with the ids in
+         * the column in the same order.
+         */
+        void restoreColumn(BoardView boardView, BoardSnapshot.Column column);
+    }
+
+    /**
+     * Clears the board and adds the columns of a snapshot again with their ids and scroll positions.
+     * All columns are added before the board is laid out again, so the board is laid out once no
+     * matter how many columns there are, and every list is laid out directly at its scroll position.
+     */
+    public void restoreBoard(BoardSnapshot snapshot, ColumnRestorer restorer) {
+        clearBoard();
+        for (int i = 0; i < snapshot.getColumnCount(); i++) {
+            BoardSnapshot.Column column = snapshot.getColumn(i);
+            int columnCount = mLists.size();
+            restorer.restoreColumn(this, column);
+            if (mLists.size() != columnCount + 1) {
+                throw new IllegalStateException("restoreColumn must add exactly one column");
+            }
+
+            DragItemRecyclerView list = mLists.get(columnCount);
+            list.setColumnId(column.getColumnId());
+            mNextColumnId = Math.max(mNextColumnId, column.getColumnId() + 1);
+            int row = column.getScrollItemId() != NO_ID
+                    ? list.getDragItemAdapter().getPositionForItemId(column.getScrollItemId())
+                    : NO_POSITION;
+            if (row != NO_POSITION && list.getLayoutManager() instanceof LinearLayoutManager) {
+                // Only sets the pending scroll position that is used by the first layout
+                ((LinearLayoutManager) list.getLayoutManager())
+                        .scrollToPositionWithOffset(row, column.getScrollOffset());
+            }
+        }
+        mItemColumnsDirty = true;
+    }
+
     public View getHeaderView(int column) {
         return mHeaders.get(column);
     }
 
-    public void removeItem(int column, int row) {
-        if (!isDragging()
-                && mLists.size() > column
-                && mLists.get(column).getAdapter().getItemCount() > row) {
+    /**
+     * Starts a batch of item changes. Until the matching {@link #endBatch()} the changes done with
+     * {@link #addItem}, {@link #removeItem}, {@link #moveItem} and {@link #replaceItem} are applied to
+     * the adapters right away, but every changed column is resized once, the board is scrolled to the
+     * last requested item once and the {@link BoardChangeListener} is called once when the batch
+     * ends. The item notifications of every changed column are held back until then, so adjacent
+     * adds, removes and changes reach the list as range notifications. Batches can be nested, only
+     * the outermost one has any effect. Always end a batch in a finally block, as an unended batch
+     * holds back all later updates.
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    public void endBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("endBatch called without beginBatch");
+        }
+        if (--mBatchDepth > 0) {
+            return;
+        }
+
+        DragItemAdapter[] adapters = mBatchAdapters.toArray(new DragItemAdapter[mBatchAdapters.size()]);
+        mBatchAdapters.clear();
+        for (DragItemAdapter adapter : adapters) {
+            adapter.endNotifyBatch();
+        }
+
+        int[] columns = new int[mBatchColumns.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = mBatchColumns.keyAt(i);
+            updateColumnHeight(columns[i]);
+        }
+        mBatchColumns.clear();
+
+        long scrollItemId = mBatchScrollItemId;
+        mBatchScrollItemId = NO_ID;
+        if (scrollItemId != NO_ID) {
+            scrollToItem(scrollItemId, false);
+        }
+
+        if (mBoardChangeListener != null && columns.length > 0) {
+            mBoardChangeListener.onColumnsChanged(columns);
+        }
+    }
+
+    /**
+     * @return the adapter of the column with its notifications held back until the batch ends, must
+     * only be called within a batch.
+     */
+    private DragItemAdapter getBatchAdapter(int column) {
+        DragItemAdapter adapter = mLists.get(column).getDragItemAdapter();
+        if (!mBatchAdapters.contains(adapter)) {
+            adapter.beginNotifyBatch();
+            mBatchAdapters.add(adapter);
+        }
+        return adapter;
+    }
+
+    /**
+     * Replaces the items of all columns, the first list becomes the items of the first column and so
+     * on. The difference to the current board is calculated on a background thread keyed by item id
+     * and all columns are then updated in the same frame as one batch, see {@link #beginBatch()}.
+     * Items found in another column than before are reported to the {@link BoardChangeListener}. If
+     * an item is being dragged the board is applied when the drag has ended, only the latest
+     * submitted board is applied.
+     * <p/>
+     * Must be called on the main thread and the lists must not be changed after they have been
+     * submitted. Items that have moved to another column are animated as removed from the old column
+     * and added to the new one, each column is a separate list.
+     *
+     * @throws IllegalStateException if an adapter has no {@link DragItemAdapter.ItemIdProvider}.
+     */
+    @SuppressWarnings("unchecked")
+    public void submitBoard(final List<? extends List<?>> columns) {
+        if (columns.size() != mLists.size()) {
+            throw new IllegalArgumentException(
+                    "Board has " + mLists.size() + " columns but " + columns.size() + " were submitted");
+        }
+        for (DragItemRecyclerView list : mLists) {
+            list.getDragItemAdapter().checkItemIdProvider();
+        }
+
+        final int generation = ++mSubmitBoardGeneration;
+        if (isDragging()) {
+            mPendingBoard = columns;
+            return;
+        }
+        mPendingBoard = null;
+
+        // Only cached snapshots are taken here, lists and ids are copied on the background thread
+        final int columnCount = columns.size();
+        final DragItemAdapter[] adapters = new DragItemAdapter[columnCount];
+        final List[] oldLists = new List[columnCount];
+        final long[][] oldIds = new long[columnCount][];
+        final long[][] newIds = new long[columnCount][];
+        final int[] versions = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            DragItemAdapter adapter = mLists.get(i).getDragItemAdapter();
+            adapters[i] = adapter;
+            oldLists[i] = adapter.getItemListSnapshot();
+            oldIds[i] = adapter.getItemIdSnapshot();
+            versions[i] = adapter.getItemListVersion();
+        }
+
+        BackgroundExecutor.get().execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult[] results = new DiffUtil.DiffResult[columnCount];
+                final List[] newSnapshots = new List[columnCount];
+                final boolean[] changed = new boolean[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    newIds[i] = adapters[i].getItemIdsInBackground(columns.get(i));
+                    if (newIds[i] == null) {
+                        postNoItemIdError(generation, i);
+                        return;
+                    }
+                    newSnapshots[i] = DragItemAdapter.createItemListSnapshot(columns.get(i));
+                    results[i] = DiffUtil.calculateDiff(adapters[i].createDiffCallback(oldLists[i],
+                            columns.get(i), oldIds[i], newIds[i]), true);
+                    changed[i] = hasUpdates(results[i]);
+                }
+                final List<ColumnMove> moves = findColumnMoves(oldIds, newIds);
+
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mSubmitBoardGeneration || mLists.size() != columnCount) {
+                            return;
+                        }
+                        for (int i = 0; i < columnCount; i++) {
+                            DragItemAdapter adapter = mLists.get(i).getDragItemAdapter();
+                            if (adapter != adapters[i] || adapter.getItemListVersion() != versions[i]) {
+                                // The board has been changed while diffing, diff again
+                                submitBoard(columns);
+                                return;
+                            }
+                        }
+                        if (isDragging()) {
+                            mPendingBoard = columns;
+                            return;
+                        }
+
+                        beginBatch();
+                        try {
+                            for (int i = 0; i < columnCount; i++) {
+                                getBatchAdapter(i).applyDiff(columns.get(i), results[i],
+                                        newSnapshots[i], newIds[i]);
+                                if (changed[i]) {
+                                    mBatchColumns.put(i, true);
+                                }
+                            }
+                        } finally {
+                            mItemColumnsDirty = true;
+                            endBatch();
+                        }
+
+                        if (mBoardChangeListener != null) {
+                            for (ColumnMove move : moves) {
+                                mBoardChangeListener.onItemMovedColumn(move.itemId, move.fromColumn,
+                                        move.toColumn);
+                            }
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void postNoItemIdError(final int generation, final int column) {
+        post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation == mSubmitBoardGeneration) {
+                    throw new IllegalArgumentException("The ItemIdProvider of column " + column
+                            + " returned NO_ID for an item of the submitted board");
+                }
+            }
+        });
+    }
+
+    private boolean isValidRow(int column, int row, boolean insert) {
+        if (column < 0 || column >= mLists.size() || row < 0) {
+            return false;
+        }
+        int count = getAdapter(column).getItemCount();
+        return insert ? row <= count : row < count;
+    }
+
+    private long getItemIdAt(int column, int row) {
+        return getAdapter(column).getItemId(row);
+    }
+
+    /**
+     * @return the id of the item at row in the column when the item with excludedId is not counted,
+     * an item added or moved to row will end up before that item. NO_ID if row is after the last item.
+     */
+    private long getAnchorId(int column, int row, long excludedId) {
+        DragItemAdapter adapter = getAdapter(column);
+        int excludedRow = excludedId != NO_ID ? adapter.getPositionForItemId(excludedId) : NO_POSITION;
+        int anchorRow = excludedRow != NO_POSITION && excludedRow <= row ? row + 1 : row;
+        return anchorRow < adapter.getItemCount() ? adapter.getItemId(anchorRow) : NO_ID;
+    }
+
+    /**
+     * @return the row before the anchor item when the item with excludedId is not counted, or the
+     * original row if the anchor is no longer in the column.
+     */
+    private int getAnchorRow(int column, long anchorId, long excludedId, int row) {
+        DragItemAdapter adapter = getAdapter(column);
+        int excludedRow = excludedId != NO_ID ? adapter.getPositionForItemId(excludedId) : NO_POSITION;
+        int count = adapter.getItemCount() - (excludedRow != NO_POSITION ? 1 : 0);
+        if (anchorId == NO_ID) {
+            return count;
+        }
+        int anchorRow = adapter.getPositionForItemId(anchorId);
+        if (anchorRow == NO_POSITION) {
+            return Math.min(row, count);
+        }
+        return excludedRow != NO_POSITION && excludedRow < anchorRow ? anchorRow - 1 : anchorRow;
+    }
+
+    /**
+     * Applies the changes done while an item was dragged as one batch. The changes refer to items by
+     * id so they apply to where the items are now, not where they were when the change was done.
+     */
+    private void applyPendingOperations() {
+        if (mPendingOperations.isEmpty()) {
+            return;
+        }
+
+        List<PendingOperation> operations = new ArrayList<>(mPendingOperations);
+        mPendingOperations.clear();
+        PendingOperation scroll;
+        beginBatch();
+        try {
+            scroll = applyPendingOperations(operations);
+        } finally {
+            endBatch();
+        }
+
+        if (scroll != null) {
+            scrollToItem(scroll.itemId, scroll.scroll);
+        }
+    }
+
+    /**
+     * @return the last scroll operation, it is done when the batch has ended.
+     */
+    private PendingOperation applyPendingOperations(List<PendingOperation> operations) {
+        PendingOperation scroll = null;
+        for (PendingOperation operation : operations) {
+            ItemPosition position = operation.itemId != NO_ID ? findItem(operation.itemId) : null;
+            switch (operation.type) {
+                case ADD:
+                    if (operation.column < mLists.size()) {
+                        addItem(operation.column, getAnchorRow(operation.column, operation.anchorId,
+                                NO_ID, operation.row), operation.item, operation.scroll);
+                    }
+                    break;
+                case REMOVE:
+                    if (position != null) {
+                        removeItem(position.column, position.row);
+                    }
+                    break;
+                case MOVE:
+                    if (position != null && operation.column < mLists.size()) {
+                        moveItem(position.column, position.row, operation.column,
+                                getAnchorRow(operation.column, operation.anchorId, operation.itemId,
+                                        operation.row), operation.scroll);
+                    }
+                    break;
+                case REPLACE:
+                    if (position != null) {
+                        replaceItem(position.column, position.row, operation.item, operation.scroll);
+                    }
+                    break;
+                case SCROLL:
+                    scroll = operation;
+                    break;
+            }
+        }
+        return scroll;
+    }
+
+    /**
+     * A change done while an item was dragged, applied when the drag has ended.
+     */
+    private static final class PendingOperation {
+        enum Type {
+            ADD, REMOVE, MOVE, REPLACE, SCROLL
+        }
+
+        final Type type;
+        final long itemId;
+        final int column;
+        final int row;
+        final long anchorId;
+        final Object item;
+        final boolean scroll;
+
+        private PendingOperation(Type type, long itemId, int column, int row, long anchorId,
+                Object item, boolean scroll) {
+            this.type = type;
+            this.itemId = itemId;
+            this.column = column;
+            this.row = row;
+            this.anchorId = anchorId;
+            this.item = item;
+            this.scroll = scroll;
+        }
+
+        static PendingOperation add(int column, int row, long anchorId, Object item,
+                boolean scrollToItem) {
+            return new PendingOperation(Type.ADD, NO_ID, column, row, anchorId, item, scrollToItem);
+        }
+
+        static PendingOperation remove(long itemId) {
+            return new PendingOperation(Type.REMOVE, itemId, NO_POSITION, NO_POSITION, NO_ID, null,
+                    false);
+        }
+
+        static PendingOperation move(long itemId, int toColumn, int toRow, long anchorId,
+                boolean scrollToItem) {
+            return new PendingOperation(Type.MOVE, itemId, toColumn, toRow, anchorId, null,
+                    scrollToItem);
+        }
+
+        static PendingOperation replace(long itemId, Object item, boolean scrollToItem) {
+            return new PendingOperation(Type.REPLACE, itemId, NO_POSITION, NO_POSITION, NO_ID, item,
+                    scrollToItem);
+        }
+
+        static PendingOperation scroll(long itemId, boolean animate) {
+            return new PendingOperation(Type.SCROLL, itemId, NO_POSITION, NO_POSITION, NO_ID, null,
+                    animate);
+        }
+    }
+
+    private static boolean hasUpdates(DiffUtil.DiffResult result) {
+        final boolean[] hasUpdates = new boolean[1];
+        result.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                hasUpdates[0] = true;
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                hasUpdates[0] = true;
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                hasUpdates[0] = true;
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                hasUpdates[0] = true;
+            }
+        });
+        return hasUpdates[0];
+    }
+
+    private static List<ColumnMove> findColumnMoves(long[][] oldIds, long[][] newIds) {
+        int itemCount = 0;
+        for (long[] ids : oldIds) {
+            itemCount += ids.length;
+        }
+        LongIntMap oldColumns = new LongIntMap(itemCount);
+        for (int column = 0; column < oldIds.length; column++) {
+            for (long itemId : oldIds[column]) {
+                oldColumns.put(itemId, column);
+            }
+        }
+
+        List<ColumnMove> moves = new ArrayList<>();
+        for (int column = 0; column < newIds.length; column++) {
+            for (long itemId : newIds[column]) {
+                int oldColumn = oldColumns.get(itemId, NO_POSITION);
+                if (oldColumn != NO_POSITION && oldColumn != column) {
+                    moves.add(new ColumnMove(itemId, oldColumn, column));
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static final class ColumnMove {
+        final long itemId;
+        final int fromColumn;
+        final int toColumn;
+
+        ColumnMove(long itemId, int fromColumn, int toColumn) {
+            this.itemId = itemId;
+            this.fromColumn = fromColumn;
+            this.toColumn = toColumn;
+        }
+    }
 
-            updateColumnHeight(column);
+    public void removeItem(int column, int row) {
+        if (isDragging()) {
+            if (isValidRow(column, row, false)) {
+                mPendingOperations.add(PendingOperation.remove(getItemIdAt(column, row)));
+            }
+            return;
+        }
 
-            DragItemAdapter adapter = (DragItemAdapter) mLists.get(column).getAdapter();
-            adapter.removeItem(row);
+        if (mLists.size() > column
+                && mLists.get(column).getDragItemAdapter().getItemCount() > row) {
+            beginBatch();
+            try {
+                DragItemAdapter adapter = getBatchAdapter(column);
+                long itemId = adapter.getItemId(row);
+                removeItemColumn(itemId);
+                adapter.removeItem(row);
+                mBatchColumns.put(column, true);
+            } finally {
+                endBatch();
+            }
         }
     }
 
     public void addItem(int column, int row, Object item, boolean scrollToItem) {
-        if (!isDragging()
-                && mLists.size() > column
-                && mLists.get(column).getAdapter().getItemCount() >= row) {
-            DragItemAdapter adapter = (DragItemAdapter) mLists.get(column).getAdapter();
-            adapter.addItem(row, item);
-            updateColumnHeight(column);
-            if (scrollToItem) {
-                scrollToItem(column, row, false);
+        if (isDragging()) {
+            if (isValidRow(column, row, true)) {
+                mPendingOperations.add(PendingOperation.add(column, row,
+                        getAnchorId(column, row, NO_ID), item, scrollToItem));
+            }
+            return;
+        }
+
+        if (mLists.size() > column
+                && mLists.get(column).getDragItemAdapter().getItemCount() >= row) {
+            beginBatch();
+            try {
+                DragItemAdapter adapter = getBatchAdapter(column);
+                adapter.addItem(row, item);
+                updateItemColumn(adapter.getItemId(row), column);
+                mBatchColumns.put(column, true);
+                if (scrollToItem) {
+                    mBatchScrollItemId = adapter.getItemId(row);
+                }
+            } finally {
+                endBatch();
             }
         }
     }
 
     public void moveItem(int fromColumn, int fromRow, int toColumn, int toRow,
             boolean scrollToItem) {
-        if (!isDragging()
-                && mLists.size() > fromColumn
-                && mLists.get(fromColumn).getAdapter().getItemCount() > fromRow
+        if (isDragging()) {
+            if (isValidRow(fromColumn, fromRow, false) && isValidRow(toColumn, toRow, true)) {
+                long itemId = getItemIdAt(fromColumn, fromRow);
+                mPendingOperations.add(PendingOperation.move(itemId, toColumn, toRow,
+                        getAnchorId(toColumn, toRow, itemId), scrollToItem));
+            }
+            return;
+        }
+
+        if (mLists.size() > fromColumn
+                && mLists.get(fromColumn).getDragItemAdapter().getItemCount() > fromRow
                 && mLists.size() > toColumn
-                && mLists.get(toColumn).getAdapter().getItemCount() >= toRow) {
-            if (fromColumn == toColumn) {
-                DragItemAdapter adapter = (DragItemAdapter) mLists.get(fromColumn).getAdapter();
+                && mLists.get(toColumn).getDragItemAdapter().getItemCount() >= toRow) {
+            beginBatch();
+            try {
+                DragItemAdapter adapter = getBatchAdapter(fromColumn);
+                // Recorded as one move below instead of a remove and an add
+                mMovingItem = true;
                 Object item = adapter.removeItem(fromRow);
-                adapter = (DragItemAdapter) mLists.get(toColumn).getAdapter();
+                adapter = getBatchAdapter(toColumn);
                 adapter.addItem(toRow, item);
-            } else {
-                updateColumnHeight(fromColumn);
+                if (fromColumn != toColumn) {
+                    updateItemColumn(adapter.getItemId(toRow), toColumn);
+                }
+                if (isJournalRecording()) {
+                    mJournal.recordMove(adapter.getItemId(toRow), getColumnId(toColumn),
+                            toRow > 0 ? adapter.getItemId(toRow - 1) : NO_ID, toRow);
+                }
+                mBatchColumns.put(fromColumn, true);
+                mBatchColumns.put(toColumn, true);
+                if (scrollToItem) {
+                    mBatchScrollItemId = adapter.getItemId(toRow);
+                }
+            } finally {
+                mMovingItem = false;
+                endBatch();
+            }
+        }
+    }
 
-                DragItemAdapter adapter = (DragItemAdapter) mLists.get(fromColumn).getAdapter();
-                Object item = adapter.removeItem(fromRow);
-                adapter = (DragItemAdapter) mLists.get(toColumn).getAdapter();
-                adapter.addItem(toRow, item);
+    public void moveItem(long itemId, int toColumn, int toRow, boolean scrollToItem) {
+        ItemPosition position = findItem(itemId);
+        if (position != null) {
+            moveItem(position.column, position.row, toColumn, toRow, scrollToItem);
+        }
+    }
 
-                updateColumnHeight(toColumn);
-            }
-            if (scrollToItem) {
-                scrollToItem(toColumn, toRow, false);
+    /**
+     * @return the column and row of the item with the specific id or null if no such item exists
+     * in the board.
+     */
+    public ItemPosition findItem(long itemId) {
+        if (mItemColumnsDirty || mItemColumns.size() != getItemCount()) {
+            rebuildItemColumns();
+        }
+
+        int column = mItemColumns.get(itemId, NO_POSITION);
+        if (column == NO_POSITION) {
+            return null;
+        }
+
+        int row = column < mLists.size() ? getAdapter(column).getPositionForItemId(itemId) : NO_POSITION;
+        if (row == NO_POSITION) {
+            // The item has been moved without going through the board, index all columns again
+            rebuildItemColumns();
+            column = mItemColumns.get(itemId, NO_POSITION);
+            if (column == NO_POSITION) {
+                return null;
             }
+            row = getAdapter(column).getPositionForItemId(itemId);
         }
+        return new ItemPosition(column, row);
     }
 
-    public void moveItem(long itemId, int toColumn, int toRow, boolean scrollToItem) {
+    private void rebuildItemColumns() {
+        mItemColumns.reset(getItemCount());
         for (int i = 0; i < mLists.size(); i++) {
-            RecyclerView.Adapter adapter = mLists.get(i).getAdapter();
-            final int count = adapter.getItemCount();
-            for (int j = 0; j < count; j++) {
-                long id = adapter.getItemId(j);
-                if (id == itemId) {
-                    moveItem(i, j, toColumn, toRow, scrollToItem);
-                    return;
-                }
-            }
+            indexItemColumns(i);
+        }
+        mItemColumnsDirty = false;
+    }
+
+    private void indexItemColumns(int column) {
+        DragItemAdapter adapter = mLists.get(column).getDragItemAdapter();
+        final int count = adapter.getItemCount();
+        for (int row = 0; row < count; row++) {
+            mItemColumns.put(adapter.getItemId(row), column);
+        }
+    }
+
+    private void updateItemColumn(long itemId, int column) {
+        if (column == NO_POSITION) {
+            removeItemColumn(itemId);
+        } else if (!mItemColumnsDirty) {
+            mItemColumns.put(itemId, column);
+        }
+    }
+
+    private void removeItemColumn(long itemId) {
+        if (!mItemColumnsDirty) {
+            mItemColumns.remove(itemId);
         }
     }
 
     public void replaceItem(int column, int row, Object item, boolean scrollToItem) {
-        if (!isDragging()
-                && mLists.size() > column
-                && mLists.get(column).getAdapter().getItemCount() > row) {
-            DragItemAdapter adapter = (DragItemAdapter) mLists.get(column).getAdapter();
-            adapter.removeItem(row);
-            adapter.addItem(row, item);
-            if (scrollToItem) {
-                scrollToItem(column, row, false);
+        if (isDragging()) {
+            if (isValidRow(column, row, false)) {
+                mPendingOperations.add(PendingOperation.replace(getItemIdAt(column, row), item,
+                        scrollToItem));
+            }
+            return;
+        }
+
+        if (mLists.size() > column
+                && mLists.get(column).getDragItemAdapter().getItemCount() > row) {
+            beginBatch();
+            try {
+                DragItemAdapter adapter = getBatchAdapter(column);
+                long oldItemId = adapter.getItemId(row);
+                adapter.replaceItem(row, item);
+                long itemId = adapter.getItemId(row);
+                if (itemId != oldItemId) {
+                    removeItemColumn(oldItemId);
+                    updateItemColumn(itemId, column);
+                }
+                mBatchColumns.put(column, true);
+                if (scrollToItem) {
+                    mBatchScrollItemId = adapter.getItemId(row);
+                }
+            } finally {
+                endBatch();
             }
         }
     }
 
     public void scrollToItem(int column, int row, boolean animate) {
-        if (!isDragging()
-                && mLists.size() > column
-                && mLists.get(column).getAdapter().getItemCount() > row) {
+        if (isDragging()) {
+            if (isValidRow(column, row, false)) {
+                mPendingOperations.add(PendingOperation.scroll(getItemIdAt(column, row), animate));
+            }
+            return;
+        }
+
+        if (mLists.size() > column
+                && mLists.get(column).getDragItemAdapter().getItemCount() > row) {
             mScroller.forceFinished(true);
             scrollToColumn(column, animate);
+            mLists.get(column).reattachAdapter();
             if (animate) {
                 mLists.get(column).smoothScrollToPosition(row);
             } else {
@@ -581,8 +1450,15 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         }
     }
 
+    public void scrollToItem(long itemId, boolean animate) {
+        ItemPosition position = findItem(itemId);
+        if (position != null) {
+            scrollToItem(position.column, position.row, animate);
+        }
+    }
+
     public void scrollToColumn(int column, boolean animate) {
-        if (mLists.size() <= column) {
+        if (column < 0 || mLists.size() <= column) {
             return;
         }
 
@@ -621,16 +1497,19 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         for (int i = count - 1; i >= 0; i--) {
             mColumnLayout.removeViewAt(i);
             mHeaders.remove(i);
-            mLists.remove(i);
+            mLists.remove(i).setColumn(NO_POSITION);
             //mBorders.remove(i);
         }
+        mItemColumnsDirty = true;
     }
 
     public void removeColumn(int column) {
         if (column >= 0 && mLists.size() > column) {
             mColumnLayout.removeViewAt(column);
             mHeaders.remove(column);
-            mLists.remove(column);
+            mLists.remove(column).setColumn(NO_POSITION);
+            updateListColumns(column);
+            mItemColumnsDirty = true;
         }
     }
 
@@ -647,6 +1526,199 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         }
     }
 
+    /**
+     * @param enabled true if only the visible columns, and the columns within the offscreen column
+     * limit of them, should keep their item views. The lists of all other columns have their adapter
+     * detached so their views are recycled, the size and scroll position of the lists are kept. Use
+     * {@link #getAdapter(int)} rather than the adapter of {@link #getRecyclerView(int)} as the latter
+     * is null for detached columns.
+     */
+    public void setColumnVirtualizationEnabled(boolean enabled) {
+        mColumnVirtualizationEnabled = enabled;
+        updateViewPoolSize();
+        if (enabled) {
+            scheduleAttachedColumnsUpdate();
+        } else {
+            for (DragItemRecyclerView list : mLists) {
+                list.reattachAdapter();
+            }
+        }
+    }
+
+    public boolean isColumnVirtualizationEnabled() {
+        return mColumnVirtualizationEnabled;
+    }
+
+    /**
+     * @param limit the number of columns on each side of the visible columns that keep their item
+     * views when column virtualization is enabled. Default is 1.
+     */
+    public void setOffscreenColumnLimit(int limit) {
+        mOffscreenColumnLimit = Math.max(0, limit);
+        updateViewPoolSize();
+        scheduleAttachedColumnsUpdate();
+    }
+
+    /**
+     * @param enabled true if all columns should get their item views from one shared
+     * {@link BoardViewPool}. The column adapters must then use view types that are unique per item
+     * layout.
+     */
+    public void setSharedViewPoolEnabled(boolean enabled) {
+        if (enabled == (mViewPool != null)) {
+            return;
+        }
+
+        mViewPool = enabled ? new BoardViewPool() : null;
+        updateViewPoolSize();
+        for (DragItemRecyclerView list : mLists) {
+            list.setRecycledViewPool(mViewPool);
+        }
+    }
+
+    /**
+     * @return the view pool shared by all columns or null if the columns do not share a pool.
+     */
+    public BoardViewPool getViewPool() {
+        return mViewPool;
+    }
+
+    /**
+     * @return a sink that takes item changes from any thread and applies them to the board once per
+     * frame, use it for feeds that update items faster than the board can lay them out.
+     */
+    public BoardUpdateSink getUpdateSink() {
+        if (mUpdateSink == null) {
+            mUpdateSink = new BoardUpdateSink(this);
+        }
+        return mUpdateSink;
+    }
+
+    /**
+     * @param writeBehind queue that every dropped item that has changed position is sent to, with
+     * the id of its column, its row and its order key. When a drop spreads out the order keys of
+     * its column, all items of the column are sent. Queued moves are flushed when the window of the
+     * board is hidden and when the board is detached from the window.
+     */
+    public void setWriteBehind(BoardWriteBehind writeBehind) {
+        mWriteBehind = writeBehind;
+    }
+
+    /**
+     * @param journal journal that every change done through the board is recorded in, including
+     * dropped items, moved columns and items edited directly on the adapter of a column. Null to
+     * stop recording.
+     */
+    public void setJournal(BoardJournal journal) {
+        mJournal = journal;
+    }
+
+    public BoardJournal getJournal() {
+        return mJournal;
+    }
+
+    void setJournalSuspended(boolean suspended) {
+        mJournalSuspended = suspended;
+    }
+
+    private boolean isJournalRecording() {
+        return mJournal != null && !mJournalSuspended;
+    }
+
+    /**
+     * Records the items added, removed, moved or replaced in the adapter of the list in the journal,
+     * with the id of the column the list is in. Edits of a list that has been removed from the board
+     * are not recorded.
+     */
+    void setItemEditListener(final DragItemRecyclerView recyclerView) {
+        recyclerView.getDragItemAdapter().setItemEditListener(new DragItemAdapter.ItemEditListener() {
+            @Override
+            public void onItemsAdded(int pos, int count) {
+                if (isRecordingEdit()) {
+                    recordItems(true, pos, count);
+                }
+            }
+
+            @Override
+            public void onItemRemoved(long itemId) {
+                if (isRecordingEdit()) {
+                    mJournal.recordRemove(itemId);
+                }
+            }
+
+            @Override
+            public void onItemsMoved(int pos, int count) {
+                if (isRecordingEdit()) {
+                    recordItems(false, pos, count);
+                }
+            }
+
+            @Override
+            public void onItemReplaced(int pos, long oldItemId) {
+                if (!isRecordingEdit()) {
+                    return;
+                }
+                long itemId = recyclerView.getDragItemAdapter().getItemId(pos);
+                if (itemId == oldItemId) {
+                    mJournal.recordReplace(itemId);
+                } else {
+                    mJournal.recordRemove(oldItemId);
+                    recordItems(true, pos, 1);
+                }
+            }
+
+            private boolean isRecordingEdit() {
+                return isJournalRecording() && !mMovingItem && recyclerView.getColumn() != NO_POSITION;
+            }
+
+            private void recordItems(boolean added, int pos, int count) {
+                DragItemAdapter adapter = recyclerView.getDragItemAdapter();
+                for (int row = pos; row < pos + count; row++) {
+                    long afterItemId = row > 0 ? adapter.getItemId(row - 1) : NO_ID;
+                    if (added) {
+                        mJournal.recordAdd(adapter.getItemId(row), recyclerView.getColumnId(),
+                                afterItemId, row);
+                    } else {
+                        mJournal.recordMove(adapter.getItemId(row), recyclerView.getColumnId(),
+                                afterItemId, row);
+                    }
+                }
+            }
+        });
+    }
+
+    void applyViewPool(RecyclerView list) {
+        if (mViewPool != null) {
+            list.setRecycledViewPool(mViewPool);
+        }
+    }
+
+    private void updateViewPoolSize() {
+        if (mViewPool == null || mColumnWidth <= 0) {
+            return;
+        }
+
+        // Columns partly visible on both sides plus the ones kept attached outside of the screen
+        int columns = (getWidth() + mColumnWidth - 1) / mColumnWidth + 1;
+        if (mColumnVirtualizationEnabled) {
+            columns += mOffscreenColumnLimit * 2;
+        }
+        mViewPool.setVisibleColumnCount(columns);
+    }
+
+    /**
+     * @param enabled true if dragging an item over other columns should only show a gap where it
+     * would be dropped. The item is then moved between the adapters once, when it is dropped, instead
+     * of every time the drag passes a column.
+     */
+    public void setDragGhostEnabled(boolean enabled) {
+        mDragGhostEnabled = enabled;
+    }
+
+    public boolean isDragGhostEnabled() {
+        return mDragGhostEnabled;
+    }
+
     /**
      * @param width the width of columns in both portrait and landscape. This must be called before
      * {@link #addColumnList} is
@@ -704,6 +1776,10 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         mBoardListener = listener;
     }
 
+    public void setBoardChangeListener(BoardChangeListener listener) {
+        mBoardChangeListener = listener;
+    }
+
     public void setBoardCallback(BoardCallback callback) {
         mBoardCallback = callback;
     }
@@ -722,15 +1798,19 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         mRootLayout.addView(mDragItem.getDragItemView());
     }
 
-    public DragItemRecyclerView addColumnList(final DragItemAdapter adapter, final View header,
-            final View footer, boolean hasFixedItemSize) {
-        final DragItemRecyclerView recyclerView =
+    /**
+     * @return a new column list with a bounded layout manager, the shared view pool and a new column
+     * id. It is added to a {@link ColumnLayout} by the caller so its height is limited to the column.
+     */
+    DragItemRecyclerView createColumnList(boolean hasFixedItemSize) {
+        DragItemRecyclerView recyclerView =
                 (DragItemRecyclerView) LayoutInflater.from(getContext())
                         .inflate(R.layout.drag_item_recycler_view, this, false);
         recyclerView.setHorizontalScrollBarEnabled(false);
         recyclerView.setVerticalScrollBarEnabled(false);
         recyclerView.setMotionEventSplittingEnabled(false);
         recyclerView.setDragItem(mDragItem);
+        recyclerView.setColumnId(nextColumnId());
         recyclerView.setLayoutParams(
                 new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT,
                         LinearLayout.LayoutParams.MATCH_PARENT));
@@ -738,6 +1818,13 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                 new DragLayoutManager(getContext(), LinearLayoutManager.VERTICAL, false));
         recyclerView.setHasFixedSize(hasFixedItemSize);
         recyclerView.setItemAnimator(new DefaultItemAnimator());
+        applyViewPool(recyclerView);
+        return recyclerView;
+    }
+
+    public DragItemRecyclerView addColumnList(final DragItemAdapter adapter, final View header,
+            final View footer, boolean hasFixedItemSize) {
+        final DragItemRecyclerView recyclerView = createColumnList(hasFixedItemSize);
         recyclerView.setDragItemListener(new DragItemRecyclerView.DragItemListener() {
             @Override
             public void onDragStarted(int itemPosition, float x, float y) {
@@ -754,14 +1841,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
 
             @Override
             public void onDragging(int itemPosition, float x, float y) {
-                int column = getColumnOfList(recyclerView);
-                boolean positionChanged = column != mLastDragColumn || itemPosition != mLastDragRow;
-                if (mBoardListener != null && positionChanged) {
-                    mLastDragColumn = column;
-                    mLastDragRow = itemPosition;
-                    mBoardListener.onItemChangedPosition(mDragStartColumn, mDragStartRow, column,
-                            itemPosition);
-                }
+                onItemDragging(getColumnOfList(recyclerView), itemPosition);
             }
 
             @Override
@@ -769,34 +1849,68 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                 mLastDragColumn = NO_POSITION;
                 mLastDragRow = NO_POSITION;
                 int mDragEndColumn = getColumnOfList(recyclerView);
+                updateItemColumn(recyclerView.getDragItemId(), mDragEndColumn);
                 updateColumnHeight(mDragStartColumn);
                 updateColumnHeight(mDragEndColumn);
 
+                if (isJournalRecording() && (mDragStartColumn != mDragEndColumn
+                        || mDragStartRow != newItemPosition)) {
+                    mJournal.recordMove(recyclerView.getDragItemId(), recyclerView.getColumnId(),
+                            newItemPosition > 0
+                                    ? recyclerView.getDragItemAdapter().getItemId(newItemPosition - 1)
+                                    : NO_ID, newItemPosition);
+                }
+                if (mWriteBehind != null && (mDragStartColumn != mDragEndColumn
+                        || mDragStartRow != newItemPosition)) {
+                    DragItemAdapter adapter = recyclerView.getDragItemAdapter();
+                    if (adapter.hasDropReassignedOrderKeys()) {
+                        // The keys were spread out again, so every item in the column has moved
+                        for (int row = 0; row < adapter.getItemCount(); row++) {
+                            mWriteBehind.onItemMoved(adapter.getItemId(row),
+                                    recyclerView.getColumnId(), row, adapter.getOrderKey(row));
+                        }
+                    } else {
+                        mWriteBehind.onItemMoved(recyclerView.getDragItemId(),
+                                recyclerView.getColumnId(), newItemPosition,
+                                adapter.getOrderKey(newItemPosition));
+                    }
+                }
+
                 if (mBoardListener != null) {
                     mBoardListener.onItemDragEnded(mDragStartColumn, mDragStartRow, mDragEndColumn,
                             newItemPosition);
                     mActiveFeature = mDragEndColumn;
                 }
+
+                applyPendingOperations();
+                if (mPendingBoard != null && mPendingBoard.size() == mLists.size()) {
+                    submitBoard(mPendingBoard);
+                }
+                if (mUpdateSink != null) {
+                    mUpdateSink.onDragEnded();
+                }
             }
         });
         recyclerView.setDragItemCallback(new DragItemRecyclerView.DragItemCallback() {
             @Override
             public boolean canDragItemAtPosition(int dragPosition) {
                 int column = getColumnOfList(recyclerView);
-                return mBoardCallback == null || mBoardCallback.canDragItemAtPosition(column,
-                        dragPosition);
+                return column != NO_POSITION && (mBoardCallback == null
+                        || mBoardCallback.canDragItemAtPosition(column, dragPosition));
             }
 
             @Override
             public boolean canDropItemAtPosition(int dropPosition) {
                 int column = getColumnOfList(recyclerView);
-                return mBoardCallback == null || mBoardCallback.canDropItemAtPosition(
-                        mDragStartColumn, mDragStartRow, column, dropPosition);
+                return column != NO_POSITION && (mBoardCallback == null
+                        || mBoardCallback.canDropItemAtPosition(mDragStartColumn, mDragStartRow,
+                        column, dropPosition));
             }
         });
 
         recyclerView.setAdapter(adapter);
         recyclerView.setDragEnabled(mDragEnabled);
+        setItemEditListener(recyclerView);
         adapter.setDragStartedListener(new DragItemAdapter.DragStartCallback() {
             @Override
             public boolean startDrag(View itemView, long itemId) {
@@ -856,71 +1970,37 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         }
 
         mLists.add(recyclerView);
+        recyclerView.setColumn(mLists.size() - 1);
+        if (!mItemColumnsDirty) {
+            indexItemColumns(mLists.size() - 1);
+        }
 
-        recyclerView.getViewTreeObserver()
-                .addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-                    @Override
-                    public void onGlobalLayout() {
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                            recyclerView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                        } else {
-                            recyclerView.getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                        }
-                        int top = getStatusHeight() + getActionBarHeight() + header.getHeight();
-                        int screenHeight = getResources().getDisplayMetrics().heightPixels;
-                        final int rvHeight = recyclerView.getHeight();
-                        recyclerView.setTag(rvHeight);
-                        int footerHeight = getFooterHeight();
-                        int maxHeight = screenHeight - top - footerHeight;
-
-                        if (rvHeight > maxHeight) {
-                            recyclerView.setLayoutParams(new LinearLayout.LayoutParams(
-                                    LinearLayout.LayoutParams.MATCH_PARENT, maxHeight));
-                        }
-                        if (isScaled) scaleChild(layout);
-                    }
-                });
+        if (isScaled) {
+            scaleChild(layout);
+        }
 
         mColumnLayout.addView(layout);
         return recyclerView;
     }
 
+    /**
+     * Makes the list of the column wrap its content again. The column layout limits the height of
+     * the list to what is left of the column when measuring so no extra layout pass is needed.
+     */
     public void updateColumnHeight(final int column) {
         final RecyclerView recyclerView = getRecyclerView(column);
-        final View header = getHeaderView(column);
-
-        //recyclerView.getRecycledViewPool().clear();
-
-        recyclerView.setLayoutParams(
-                new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT,
-                        LinearLayout.LayoutParams.WRAP_CONTENT));
-
-        recyclerView.getAdapter().notifyDataSetChanged();
+        if (recyclerView == null) {
+            return;
+        }
 
-        recyclerView.getViewTreeObserver()
-                .addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-                    @Override
-                    public void onGlobalLayout() {
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                            recyclerView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                        } else {
-                            recyclerView.getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                        }
-                        int top = getStatusHeight() + getActionBarHeight() + header.getHeight();
-                        int screenHeight = getResources().getDisplayMetrics().heightPixels;
-                        int rvHeight = recyclerView.getHeight();
-                        recyclerView.setTag(rvHeight);
-                        int footerHeight = getFooterHeight();
-                        int maxHeight = screenHeight - top - footerHeight;
-                        if (rvHeight >= maxHeight) {
-                            recyclerView.setLayoutParams(new LinearLayout.LayoutParams(
-                                    LinearLayout.LayoutParams.MATCH_PARENT, maxHeight));
-                        } else {
-                            recyclerView.setLayoutParams(new LinearLayout.LayoutParams(
-                                    LinearLayout.LayoutParams.MATCH_PARENT, rvHeight));
-                        }
-                    }
-                });
+        ViewGroup.LayoutParams params = recyclerView.getLayoutParams();
+        if (params == null || params.height != LinearLayout.LayoutParams.WRAP_CONTENT) {
+            recyclerView.setLayoutParams(
+                    new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT,
+                            LinearLayout.LayoutParams.WRAP_CONTENT));
+        } else {
+            recyclerView.requestLayout();
+        }
     }
 
     public void scale() {
@@ -929,13 +2009,8 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         scaleChild(mColumnLayout);
         //scale recycler view and child
         for (int i = 0; i < mLists.size(); i++) {
-            DragItemAdapter adapter = (DragItemAdapter) mLists.get(i).getAdapter();
+            DragItemAdapter adapter = mLists.get(i).getDragItemAdapter();
             adapter.scale();
-
-            RecyclerView rv = getRecyclerView(i);
-            if (rv == null || rv.getTag() == null) continue;
-            int oldHeight = (int) rv.getTag();
-            rv.setTag((int) Math.floor(oldHeight * ScaleUtil.getScale(isScaled)));
             updateColumnHeight(i);
         }
 
@@ -947,36 +2022,6 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         ScaleUtil.scaleViewAndChildren(view, ScaleUtil.getScale(isScaled), 0, 4);
     }
 
-    private int getFooterHeight() {
-        return SizeUtil.dpToPx(getContext(), 48);
-    }
-
-    private int getActionBarHeight() {
-        int actionBarHeight = 0;
-        TypedValue tv = new TypedValue();
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
-            if (getContext().getTheme().resolveAttribute(android.R.attr.actionBarSize, tv, true)) {
-                actionBarHeight = TypedValue.complexToDimensionPixelSize(tv.data,
-                        getResources().getDisplayMetrics());
-            }
-        } else {
-            actionBarHeight = TypedValue.complexToDimensionPixelSize(tv.data,
-                    getResources().getDisplayMetrics());
-        }
-        return actionBarHeight;
-    }
-
-    private int getStatusHeight() {
-        final Resources resources = getContext().getResources();
-        final int resourceId = resources.getIdentifier("status_bar_height", "dimen", "android");
-        if (resourceId > 0) {
-            return resources.getDimensionPixelSize(resourceId);
-        } else {
-            return (int) Math.ceil((Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? 24 : 25)
-                    * resources.getDisplayMetrics().density);
-        }
-    }
-
     @SuppressWarnings("WeakerAccess")
     static class SavedState extends BaseSavedState {
         public int currentColumn;
@@ -1250,6 +2295,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         DragItemRecyclerView secondItem = mLists.remove(secondColumn - 1);
         mLists.add(firstColumn, secondItem);
         mLists.add(secondColumn, firstItem);
+        updateListColumns(firstColumn);
 
         View firstHeader = mHeaders.get(firstColumn);
         View secondHeader = mHeaders.get(secondColumn);
@@ -1261,6 +2307,16 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         mFooters.put(firstColumn, secondFooter);
         mFooters.put(secondColumn, firstFooter);
 
+        if (!mItemColumnsDirty) {
+            indexItemColumns(firstColumn);
+            indexItemColumns(secondColumn);
+        }
+        if (isJournalRecording() && firstColumn != secondColumn) {
+            // A swap is the second column moved to the first index and the first moved back
+            mJournal.recordMoveColumn(getColumnId(firstColumn), firstColumn);
+            mJournal.recordMoveColumn(getColumnId(secondColumn), secondColumn);
+        }
+
         //View firstBorder = mBorders.get(firstColumn);
         //View secondBorder = mBorders.get(secondColumn);
         //mBorders.put(firstColumn, secondBorder);
@@ -1272,7 +2328,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     }
 
     private View createBorder() {
-        final LinearLayout border = new LinearLayout(getContext());
+        final LinearLayout border = new ColumnLayout(getContext());
         RelativeLayout.LayoutParams params =
                 new RelativeLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
                         LayoutParams.MATCH_PARENT);
@@ -1298,10 +2354,6 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     protected void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
         for (int i = 0; i < mLists.size(); i++) {
-            RecyclerView rv = getRecyclerView(i);
-            if (rv == null || rv.getTag() == null) continue;
-            int oldHeight = (int) rv.getTag();
-            rv.setTag((int) Math.floor(oldHeight * ScaleUtil.getScale(isScaled)));
             updateColumnHeight(i);
         }
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseBooleanArray;
+
+/**
+ * View pool shared by all columns of a {@link BoardView} so that item views scrolled out of one
+ * column, or left behind when an item is dragged to another column, can be reused by any column.
+ * The number of views kept per view type grows with the number of visible columns.
+ * <p/>
+ * All column adapters must use view types that are unique per item layout, a view type of one
+ * adapter is bound by any other adapter with the same view type.
+ */
+public class BoardViewPool extends RecyclerView.RecycledViewPool {
+    private static final int DEFAULT_MAX_VIEWS_PER_COLUMN = 5;
+
+    private final SparseBooleanArray mViewTypes = new SparseBooleanArray();
+    private int mMaxViewsPerColumn = DEFAULT_MAX_VIEWS_PER_COLUMN;
+    private int mVisibleColumns = 1;
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * @param maxViews the number of views per view type and visible column to keep in the pool.
+     */
+    public void setMaxViewsPerColumn(int maxViews) {
+        mMaxViewsPerColumn = maxViews;
+        updateMaxRecycledViews();
+    }
+
+    void setVisibleColumnCount(int columns) {
+        columns = Math.max(1, columns);
+        if (mVisibleColumns != columns) {
+            mVisibleColumns = columns;
+            updateMaxRecycledViews();
+        }
+    }
+
+    /**
+     * @return the number of times a column got a view from the pool instead of creating a new one.
+     */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return the number of times a column found no view in the pool and had to create a new one.
+     */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public void resetCounts() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        if (holder != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return holder;
+    }
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder holder) {
+        int viewType = holder.getItemViewType();
+        if (mViewTypes.indexOfKey(viewType) < 0) {
+            mViewTypes.put(viewType, true);
+            setMaxRecycledViews(viewType, getMaxRecycledViews());
+        }
+        super.putRecycledView(holder);
+    }
+
+    private void updateMaxRecycledViews() {
+        int maxViews = getMaxRecycledViews();
+        for (int i = 0; i < mViewTypes.size(); i++) {
+            setMaxRecycledViews(mViewTypes.keyAt(i), maxViews);
+        }
+    }
+
+    private int getMaxRecycledViews() {
+        return mMaxViewsPerColumn * mVisibleColumns;
+    }
+}
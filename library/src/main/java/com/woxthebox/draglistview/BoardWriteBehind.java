@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Stores item moves in the background instead of in the board callbacks on the main thread. Moves
+ * are collected for a short delay, where later moves of an item replace earlier ones, and are then
+ * written as one batch to a {@link Sink} on a background executor. Only one batch is written at a
+ * time so batches are written in order.
+ * <p/>
+ * Set it on a board with {@link BoardView#setWriteBehind}. The board flushes it when its window is
+ * hidden, which happens when the app goes to the background, and when it is detached. Call
+ * {@link #flush()} from onPause as well if moves must be stored before the next activity starts.
+ * <p/>
+ * A batch that fails is kept and written again after the delay, which is doubled for every failure
+ * in a row up to a minute.
+ */
+public class BoardWriteBehind {
+    private static final String TAG = "BoardWriteBehind";
+    private static final long DEFAULT_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 60 * 1000;
+
+    public static final class ItemMove {
+        public final long itemId;
+        public final long columnId;
+        public final int row;
+        /**
+         * The order key of the item, or null if order keys are not enabled in the adapter.
+         */
+        public final String orderKey;
+
+        public ItemMove(long itemId, long columnId, int row, String orderKey) {
+            this.itemId = itemId;
+            this.columnId = columnId;
+            this.row = row;
+            this.orderKey = orderKey;
+        }
+    }
+
+    public interface Sink {
+        /**
+         * Writes a batch of moves, at most one per item, preferably in one transaction. Called on the
+         * background executor. If it throws, the moves are kept and written again with the next
+         * batch.
+         */
+        void write(List<ItemMove> moves) throws Exception;
+    }
+
+    private final Sink mSink;
+    private final Object mLock = new Object();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private LinkedHashMap<Long, ItemMove> mPendingMoves = new LinkedHashMap<>();
+    private Executor mExecutor;
+    private long mDelay = DEFAULT_DELAY;
+    private long mRetryDelay;
+    private boolean mWriting;
+    private boolean mFlushRequested;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public BoardWriteBehind(Sink sink) {
+        mSink = sink;
+    }
+
+    /**
+     * @param executor the executor the sink is called on, default is a background thread shared by
+     * the library.
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * @param delay the time in milliseconds moves are collected before they are written, default is
+     * one second.
+     */
+    public void setDelay(long delay) {
+        mDelay = delay;
+    }
+
+    /**
+     * Queues a move of an item, replacing any queued move of the same item. While a failed batch
+     * waits to be written again the write is not moved earlier than the retry delay.
+     */
+    public void onItemMoved(long itemId, long columnId, int row, String orderKey) {
+        long delay;
+        synchronized (mLock) {
+            mPendingMoves.remove(itemId);
+            mPendingMoves.put(itemId, new ItemMove(itemId, columnId, row, orderKey));
+            delay = Math.max(mDelay, mRetryDelay);
+        }
+        mMainHandler.removeCallbacks(mFlushRunnable);
+        mMainHandler.postDelayed(mFlushRunnable, delay);
+    }
+
+    /**
+     * @return the number of items with moves that have not been written yet.
+     */
+    public int getPendingCount() {
+        synchronized (mLock) {
+            return mPendingMoves.size();
+        }
+    }
+
+    /**
+     * Writes all queued moves now without waiting for the delay. The write is still done on the
+     * executor, after any write that is already in progress.
+     */
+    public void flush() {
+        mMainHandler.removeCallbacks(mFlushRunnable);
+        final List<ItemMove> moves;
+        synchronized (mLock) {
+            if (mWriting) {
+                mFlushRequested = true;
+                return;
+            }
+            if (mPendingMoves.isEmpty()) {
+                return;
+            }
+            moves = new ArrayList<>(mPendingMoves.values());
+            mPendingMoves = new LinkedHashMap<>();
+            mWriting = true;
+        }
+
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean written = false;
+                try {
+                    mSink.write(moves);
+                    written = true;
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to write " + moves.size() + " moves", e);
+                }
+                onWriteDone(moves, written);
+            }
+        });
+    }
+
+    private void onWriteDone(List<ItemMove> moves, boolean written) {
+        boolean flush;
+        long retryDelay = 0;
+        synchronized (mLock) {
+            if (written) {
+                mRetryDelay = 0;
+            } else {
+                // Keep the failed moves unless the items have been moved again since
+                LinkedHashMap<Long, ItemMove> pendingMoves = new LinkedHashMap<>();
+                for (ItemMove move : moves) {
+                    pendingMoves.put(move.itemId, move);
+                }
+                for (ItemMove move : mPendingMoves.values()) {
+                    pendingMoves.remove(move.itemId);
+                    pendingMoves.put(move.itemId, move);
+                }
+                mPendingMoves = pendingMoves;
+                mRetryDelay = mRetryDelay == 0 ? Math.max(mDelay, 1)
+                        : Math.min(mRetryDelay * 2, Math.max(mDelay, MAX_RETRY_DELAY));
+                retryDelay = mRetryDelay;
+            }
+            mWriting = false;
+            // A failed batch is not written again right away even if a flush was requested
+            flush = mFlushRequested && written;
+            mFlushRequested = false;
+        }
+        if (flush) {
+            flush();
+        } else if (!written) {
+            mMainHandler.removeCallbacks(mFlushRunnable);
+            mMainHandler.postDelayed(mFlushRunnable, retryDelay);
+        }
+    }
+
+    private Executor getExecutor() {
+        return mExecutor != null ? mExecutor : BackgroundExecutor.get();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.content.Context;
+import android.support.v4.view.GravityCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.LinearLayout;
+
+/**
+ * Vertical layout for a board column with a header, a list and a footer. The list wraps its
+ * content but is never measured bigger than what is left of the column when the header and footer
+ * have been measured, so the footer always stays inside the column without a second layout pass.
+ * <p/>
+ * Margins, gravity, layout_gravity and layout_weight work as in a LinearLayout, dividers are not
+ * supported. Weights only share out the space left when the column has an exact height, otherwise
+ * weighted children wrap their content. The children are laid out here as well, since LinearLayout
+ * places them from the total height of its own measure pass.
+ */
+class ColumnLayout extends LinearLayout {
+    private int mGravity = GravityCompat.START | Gravity.TOP;
+    private int mTotalHeight;
+
+    ColumnLayout(Context context) {
+        super(context);
+        setOrientation(VERTICAL);
+    }
+
+    @Override
+    public void setGravity(int gravity) {
+        super.setGravity(gravity);
+        mGravity = gravity;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        View list = findList();
+        if (list == null || getOrientation() != VERTICAL) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        boolean exactHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY;
+        int usedHeight = getPaddingTop() + getPaddingBottom();
+        float totalWeight = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child == list || child.getVisibility() == GONE) {
+                continue;
+            }
+            usedHeight += measureFixedHeight(child, widthMeasureSpec, heightMeasureSpec, usedHeight, exactHeight);
+            totalWeight += getWeight(child, exactHeight);
+        }
+
+        if (list.getVisibility() != GONE) {
+            // The list gets what is left of the column, a wrap content list is measured at most to that height
+            usedHeight += measureFixedHeight(list, widthMeasureSpec, heightMeasureSpec, usedHeight, exactHeight);
+            totalWeight += getWeight(list, exactHeight);
+        }
+
+        if (totalWeight > 0) {
+            // Share out the space that is left by weight, same as a LinearLayout
+            int remaining = Math.max(0, MeasureSpec.getSize(heightMeasureSpec) - usedHeight);
+            float weightSum = getWeightSum() > 0 ? getWeightSum() : totalWeight;
+            for (int i = 0; i < getChildCount(); i++) {
+                View child = getChildAt(i);
+                float weight = child.getVisibility() != GONE ? getWeight(child, true) : 0;
+                if (weight <= 0 || weightSum <= 0) {
+                    continue;
+                }
+                int share = (int) (remaining * weight / weightSum);
+                weightSum -= weight;
+                remaining -= share;
+
+                LayoutParams params = (LayoutParams) child.getLayoutParams();
+                int height = (params.height == 0 ? 0 : child.getMeasuredHeight()) + share;
+                child.measure(getChildWidthSpec(child, widthMeasureSpec),
+                        MeasureSpec.makeMeasureSpec(Math.max(0, height), MeasureSpec.EXACTLY));
+                usedHeight += share;
+            }
+        }
+
+        int maxWidth = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                LayoutParams params = (LayoutParams) child.getLayoutParams();
+                maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + params.leftMargin + params.rightMargin);
+            }
+        }
+        maxWidth += getPaddingLeft() + getPaddingRight();
+        mTotalHeight = usedHeight;
+        setMeasuredDimension(resolveSize(maxWidth, widthMeasureSpec), resolveSize(usedHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (findList() == null || getOrientation() != VERTICAL) {
+            super.onLayout(changed, l, t, r, b);
+            return;
+        }
+
+        int childTop;
+        switch (mGravity & Gravity.VERTICAL_GRAVITY_MASK) {
+            case Gravity.BOTTOM:
+                childTop = getPaddingTop() + b - t - mTotalHeight;
+                break;
+            case Gravity.CENTER_VERTICAL:
+                childTop = getPaddingTop() + (b - t - mTotalHeight) / 2;
+                break;
+            default:
+                childTop = getPaddingTop();
+                break;
+        }
+
+        int childSpace = r - l - getPaddingLeft() - getPaddingRight();
+        int layoutDirection = ViewCompat.getLayoutDirection(this);
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            LayoutParams params = (LayoutParams) child.getLayoutParams();
+            int width = child.getMeasuredWidth();
+            int height = child.getMeasuredHeight();
+            int gravity = params.gravity >= 0 ? params.gravity : mGravity;
+            int childLeft;
+            switch (GravityCompat.getAbsoluteGravity(gravity, layoutDirection)
+                    & Gravity.HORIZONTAL_GRAVITY_MASK) {
+                case Gravity.CENTER_HORIZONTAL:
+                    childLeft = getPaddingLeft() + (childSpace - width) / 2 + params.leftMargin
+                            - params.rightMargin;
+                    break;
+                case Gravity.RIGHT:
+                    childLeft = r - l - getPaddingRight() - width - params.rightMargin;
+                    break;
+                default:
+                    childLeft = getPaddingLeft() + params.leftMargin;
+                    break;
+            }
+            childTop += params.topMargin;
+            child.layout(childLeft, childTop, childLeft + width, childTop + height);
+            childTop += height + params.bottomMargin;
+        }
+    }
+
+    /**
+     * Measures the child with the height already used by the children before it, a weighted child
+     * with zero height is left to the weight pass.
+     *
+     * @return the height the child takes up including its margins.
+     */
+    private int measureFixedHeight(View child, int widthMeasureSpec, int heightMeasureSpec, int usedHeight,
+            boolean exactHeight) {
+        LayoutParams params = (LayoutParams) child.getLayoutParams();
+        int margins = params.topMargin + params.bottomMargin;
+        if (params.height == 0 && getWeight(child, exactHeight) > 0) {
+            return margins;
+        }
+
+        // A weighted child with zero height wraps its content when there is no space to share
+        int height = params.height == 0 && params.weight > 0 ? LayoutParams.WRAP_CONTENT : params.height;
+        child.measure(getChildWidthSpec(child, widthMeasureSpec),
+                getChildMeasureSpec(heightMeasureSpec, usedHeight + margins, height));
+        return child.getMeasuredHeight() + margins;
+    }
+
+    private int getChildWidthSpec(View child, int widthMeasureSpec) {
+        LayoutParams params = (LayoutParams) child.getLayoutParams();
+        return getChildMeasureSpec(widthMeasureSpec,
+                getPaddingLeft() + getPaddingRight() + params.leftMargin + params.rightMargin, params.width);
+    }
+
+    private static float getWeight(View child, boolean exactHeight) {
+        return exactHeight ? ((LayoutParams) child.getLayoutParams()).weight : 0;
+    }
+
+    private View findList() {
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child instanceof RecyclerView) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
@@ -21,8 +21,7 @@ import android.animation.ObjectAnimator;
 import android.animation.PropertyValuesHolder;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.view.View;
 import android.view.animation.DecelerateInterpolator;
@@ -42,6 +41,7 @@ public class DragItem {
     private float mAnimationDy;
     private boolean mCanDragHorizontally = true;
     private boolean mSnapToTouch = true;
+    private final DragSnapshotDrawable mSnapshot = new DragSnapshotDrawable();
 
     public DragItem(Context context) {
         mDragView = new View(context);
@@ -54,15 +54,42 @@ public class DragItem {
     }
 
     public void onBindDragView(View clickedView, View dragView) {
-        Bitmap bitmap = Bitmap.createBitmap(clickedView.getWidth(), clickedView.getHeight(),
-                Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        clickedView.draw(canvas);
+        mSnapshot.capture(clickedView);
+        setBackground(dragView, mSnapshot);
+    }
+
+    /**
+     * Sets the bitmap config used for the snapshot of the dragged view. Default is ARGB_8888, use
+     * RGB_565 to halve the memory if the items have no transparent parts.
+     */
+    public void setSnapshotConfig(Bitmap.Config config) {
+        mSnapshot.setConfig(config);
+    }
+
+    /**
+     * Sets the scale of the snapshot of the dragged view compared to the view itself, it is scaled
+     * up again when drawn. A scale of 0.5 uses a quarter of the memory but looks less sharp.
+     */
+    public void setSnapshotScale(float scale) {
+        mSnapshot.setScale(scale);
+    }
+
+    /**
+     * Releases the snapshot bitmap that is reused between drags.
+     */
+    public void releaseSnapshot() {
+        if (mDragView.getBackground() == mSnapshot) {
+            setBackground(mDragView, null);
+        }
+        mSnapshot.release();
+    }
+
+    private static void setBackground(View view, Drawable drawable) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            dragView.setBackground(new BitmapDrawable(clickedView.getResources(), bitmap));
+            view.setBackground(drawable);
         } else {
             //noinspection deprecation
-            dragView.setBackgroundDrawable(new BitmapDrawable(clickedView.getResources(), bitmap));
+            view.setBackgroundDrawable(drawable);
         }
     }
 
@@ -103,11 +130,14 @@ public class DragItem {
     }
 
     private void show() {
+        // The drag view is only moved with translation while dragging so keep it in its own layer
+        mDragView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
         mDragView.setVisibility(View.VISIBLE);
     }
 
     void hide() {
         mDragView.setVisibility(View.GONE);
+        mDragView.setLayerType(View.LAYER_TYPE_NONE, null);
     }
 
     void startDrag(View startFromView, float touchX, float touchY) {
@@ -211,7 +241,6 @@ public class DragItem {
         }
 
         mDragView.setY(mPosY + mOffsetY + mAnimationDy - mDragView.getMeasuredHeight() / 2);
-        mDragView.invalidate();
     }
 
     public void scale(boolean isScaled) {
@@ -16,29 +16,154 @@
 
 package com.woxthebox.draglistview;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.BatchingListUpdateCallback;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.view.MotionEvent;
 import android.view.View;
 import com.woxthebox.draglistview.utils.DefaultItemClickListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
         extends RecyclerView.Adapter<VH> {
 
+    /**
+     * Payloads used with notifyItemChanged when only the drag state of an item has changed. A bind
+     * with only these payloads will not do a full bind of the item, see {@link #onBindDragState}
+     * and {@link #isDropTargetBoundInDragState}.
+     */
+    public enum DragPayload {
+        DRAG_ITEM_CHANGED, DROP_TARGET_CHANGED, DROP_COMMITTED
+    }
+
+    /**
+     * Decides what has changed when an item is replaced with a new version of itself, see
+     * {@link #replaceItem} and {@link #setItemChangeCallback}.
+     */
+    public interface ItemChangeCallback<T> {
+        /**
+         * @return a payload describing what has changed between the items, it is passed to
+         * {@link #onBindChangePayloads}. Return null to bind the whole item again. Can be called on a
+         * background thread from {@link #submitList}.
+         */
+        Object getChangePayload(T oldItem, T newItem);
+    }
+
+    /**
+     * Reads the id of an item straight from the item, see {@link #setItemIdProvider}.
+     */
+    public interface ItemIdProvider<T> {
+        /**
+         * @return the same id as {@link DragItemAdapter#getUniqueItemId(int)} returns for the item,
+         * never NO_ID. Called on a background thread by {@link DragItemAdapter#submitList} and
+         * {@link BoardView#submitBoard}, so it must only read the item and nothing that the main
+         * thread changes.
+         */
+        long getItemId(T item);
+    }
+
+    /**
+     * Listens to changes of the order keys, see {@link #setOrderKeysEnabled}.
+     */
+    public interface OrderKeyListener {
+        /**
+         * Called for every item that has been added or moved and got a new order key, also when
+         * many items get keys at once. A dragged item gets its key once when it is dropped, before
+         * the drag end callbacks.
+         */
+        void onOrderKeyChanged(long itemId, String orderKey);
+
+        /**
+         * Called when a generated key has grown longer than 32 characters and the keys of all items
+         * have been spread out again with {@link OrderKeys}, also when an {@link OrderKeyGenerator}
+         * is set. The new keys only depend on the number of items.
+         */
+        void onOrderKeysReassigned();
+    }
+
+    /**
+     * Generates the key of an added or moved item, see {@link #setOrderKeyGenerator}.
+     */
+    public interface OrderKeyGenerator {
+        /**
+         * @return a key that sorts between the keys, either of them can be null for no bound.
+         */
+        String between(String before, String after);
+
+        /**
+         * @return count keys in ascending order between the keys, for items added or moved together.
+         */
+        String[] between(String before, String after, int count);
+    }
+
     interface DragStartCallback {
         boolean startDrag(View itemView, long itemId);
 
         boolean isDragging();
     }
 
+    /**
+     * Told about the items that are added, removed, moved or replaced with the edit methods of the
+     * adapter, so a board can record edits done directly on the adapter of a column. Lists that are
+     * set or submitted and the moves of a dragged item are not reported.
+     */
+    interface ItemEditListener {
+        void onItemsAdded(int pos, int count);
+
+        /**
+         * Called with the id of every removed item, before it is removed from a range.
+         */
+        void onItemRemoved(long itemId);
+
+        /**
+         * Called when the items from pos to pos + count - 1 have moved, in their new place.
+         */
+        void onItemsMoved(int pos, int count);
+
+        void onItemReplaced(int pos, long oldItemId);
+    }
+
     private DragStartCallback mDragStartCallback;
+    private ItemEditListener mItemEditListener;
     private long mDragItemId = RecyclerView.NO_ID;
     private long mDropTargetId = RecyclerView.NO_ID;
     protected List<T> mItemList;
+    private LongIntMap mItemIdIndex = new LongIntMap();
+    private boolean mItemIdIndexDirty = true;
+    // Positions before this are indexed correctly, later positions may have been shifted
+    private int mItemIdIndexValidCount;
+    private int mItemListVersion;
+    private int mSubmitGeneration;
+    private boolean mHasPendingSubmit;
+    private List<T> mPendingSubmitList;
+    private Executor mDiffExecutor;
+    private Handler mMainHandler;
+    private ItemChangeCallback<T> mItemChangeCallback;
+    private ItemIdProvider<T> mItemIdProvider;
+    private long[] mItemIdSnapshot;
+    private List<T> mItemListSnapshot;
+    private int mItemListSnapshotVersion;
+    private LongObjectMap<String> mOrderKeys;
+    private OrderKeyListener mOrderKeyListener;
+    private OrderKeyGenerator mOrderKeyGenerator;
+    private String mDragOrderKey;
+    private int mOrderKeysReassignedCount;
+    private boolean mDropReassignedOrderKeys;
+    private BatchingListUpdateCallback mNotifyBatch;
+    private int mNotifyBatchDepth;
+    private int mItemIdSnapshotVersion;
     protected boolean isScaled;
     protected boolean isInit = true;
     private DefaultItemClickListener mItemClickListener;
+    private static final int MAX_ORDER_KEY_LENGTH = 32;
 
     /**
      * @return a unique id for an item at the specific position.
@@ -51,9 +176,579 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
 
     public void setItemList(List<T> itemList) {
         mItemList = itemList;
+        mItemIdIndexDirty = true;
+        mItemListVersion++;
+        // A list set directly replaces any list that is still being diffed
+        mSubmitGeneration++;
+        mHasPendingSubmit = false;
+        mPendingSubmitList = null;
+        assignOrderKeys(false);
+        dispatchNotifyBatch();
         notifyDataSetChanged();
     }
 
+    /**
+     * Replaces the item list like {@link #setItemList} but only notifies the items that have been
+     * added, removed, moved or changed. The difference is calculated on a background thread using the
+     * item ids and {@link #areItemContentsTheSame}. An {@link ItemIdProvider} must be set, the ids of
+     * the new list are read with it on the background thread. If an item is being dragged the list is applied
+     * when the drag has ended, only the latest submitted list is applied.
+     * <p/>
+     * Must be called on the main thread and the list must not be changed after it has been submitted.
+     *
+     * @throws IllegalStateException if there is no {@link ItemIdProvider}.
+     */
+    public void submitList(final List<T> newList) {
+        checkItemIdProvider();
+        final int generation = ++mSubmitGeneration;
+        if (isDragging()) {
+            mHasPendingSubmit = true;
+            mPendingSubmitList = newList;
+            return;
+        }
+        mHasPendingSubmit = false;
+        mPendingSubmitList = null;
+
+        final List<T> oldList = getItemListSnapshot();
+        final long[] oldIds = getItemIdSnapshot();
+        final int version = mItemListVersion;
+        getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final long[] newIds = getItemIdsInBackground(newList);
+                final List<T> newSnapshot = newIds != null ? createItemListSnapshot(newList) : null;
+                final DiffUtil.DiffResult result = newIds != null
+                        ? DiffUtil.calculateDiff(createDiffCallback(oldList, newList, oldIds, newIds), true)
+                        : null;
+
+                getMainHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mSubmitGeneration) {
+                            return;
+                        }
+                        if (newIds == null) {
+                            throw new IllegalArgumentException(
+                                    "The ItemIdProvider returned NO_ID for an item of the submitted list");
+                        }
+                        if (isDragging() || version != mItemListVersion) {
+                            // The list has been changed while diffing, diff again when possible
+                            submitList(newList);
+                            return;
+                        }
+
+                        applyDiff(newList, result, newSnapshot, newIds);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return a diff callback comparing items by id and {@link #areItemContentsTheSame}, safe to use
+     * on a background thread as long as the lists are not changed.
+     */
+    DiffUtil.Callback createDiffCallback(final List<T> oldList, final List<T> newList,
+            final long[] oldIds, final long[] newIds) {
+        return new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldIds.length;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newIds.length;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldIds[oldItemPosition] == newIds[newItemPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return areItemContentsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+            }
+
+            @Override
+            public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                return getItemChangePayload(oldList.get(oldItemPosition), newList.get(newItemPosition));
+            }
+        };
+    }
+
+    /**
+     * Sets newList as the item list and notifies the changes in result, which must have been
+     * calculated from the current item list.
+     */
+    void applyDiff(List<T> newList, DiffUtil.DiffResult result) {
+        mItemList = newList;
+        mItemIdIndexDirty = true;
+        mItemListVersion++;
+        mSubmitGeneration++;
+        assignOrderKeys(false);
+        result.dispatchUpdatesTo(getUpdateCallback());
+    }
+
+    /**
+     * Same as {@link #applyDiff(List, DiffUtil.DiffResult)} but also keeps a snapshot and the ids of
+     * newList that were made on a background thread, so the next diff does not need to copy the list
+     * on the main thread.
+     */
+    void applyDiff(List<T> newList, DiffUtil.DiffResult result, List<T> snapshot, long[] ids) {
+        applyDiff(newList, result);
+        if (mItemList == newList && snapshot.size() == getItemCount() && ids.length == getItemCount()) {
+            mItemListSnapshot = snapshot;
+            mItemListSnapshotVersion = mItemListVersion;
+            mItemIdSnapshot = ids;
+            mItemIdSnapshotVersion = mItemListVersion;
+        }
+    }
+
+    private final ListUpdateCallback mAdapterUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position, count, payload);
+        }
+    };
+
+    /**
+     * Starts holding back the notifications of item changes. Until the matching
+     * {@link #endNotifyBatch()} adjacent adds, removes and changes of the same kind are merged into
+     * range notifications, which are sent in order when the batch ends. Batches can be nested.
+     */
+    void beginNotifyBatch() {
+        if (mNotifyBatchDepth++ == 0) {
+            mNotifyBatch = new BatchingListUpdateCallback(mAdapterUpdateCallback);
+        }
+    }
+
+    void endNotifyBatch() {
+        if (mNotifyBatchDepth == 0) {
+            throw new IllegalStateException("endNotifyBatch called without beginNotifyBatch");
+        }
+        if (--mNotifyBatchDepth == 0) {
+            dispatchNotifyBatch();
+            mNotifyBatch = null;
+        }
+    }
+
+    /**
+     * Sends the notifications held back so far, needed before a notification that can't be merged.
+     */
+    private void dispatchNotifyBatch() {
+        if (mNotifyBatch != null) {
+            mNotifyBatch.dispatchLastEvent();
+        }
+    }
+
+    private ListUpdateCallback getUpdateCallback() {
+        return mNotifyBatch != null ? mNotifyBatch : mAdapterUpdateCallback;
+    }
+
+    /**
+     * @return a number that changes every time the item list is changed through the adapter.
+     */
+    int getItemListVersion() {
+        return mItemListVersion;
+    }
+
+    /**
+     * Used by {@link #submitList} to find the items that need to be bound again. Called on a
+     * background thread, default is equals.
+     */
+    protected boolean areItemContentsTheSame(T oldItem, T newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+
+    /**
+     * @param callback the callback used to get the payload when an item is replaced by
+     * {@link #replaceItem} or changed by {@link #submitList}, null to always bind the whole item.
+     */
+    public void setItemChangeCallback(ItemChangeCallback<T> callback) {
+        mItemChangeCallback = callback;
+    }
+
+    /**
+     * @param provider reads the ids of the items of lists that are not the item list yet, required
+     * by {@link #submitList} and {@link BoardView#submitBoard} which read them on a background thread.
+     */
+    public void setItemIdProvider(ItemIdProvider<T> provider) {
+        mItemIdProvider = provider;
+    }
+
+    private Object getItemChangePayload(T oldItem, T newItem) {
+        ItemChangeCallback<T> callback = mItemChangeCallback;
+        return callback != null ? callback.getChangePayload(oldItem, newItem) : null;
+    }
+
+    /**
+     * @param executor the executor used to diff lists in {@link #submitList}, default is a background
+     * thread shared by all adapters.
+     */
+    public void setDiffExecutor(Executor executor) {
+        mDiffExecutor = executor;
+    }
+
+    private Executor getDiffExecutor() {
+        return mDiffExecutor != null ? mDiffExecutor : BackgroundExecutor.get();
+    }
+
+    private Handler getMainHandler() {
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mMainHandler;
+    }
+
+    /**
+     * @throws IllegalStateException if there is no {@link ItemIdProvider}, which lists that are not
+     * the item list need for their ids.
+     */
+    void checkItemIdProvider() {
+        if (mItemIdProvider == null) {
+            throw new IllegalStateException("Set an ItemIdProvider to submit lists");
+        }
+    }
+
+    /**
+     * @return the ids of the items in list read with the {@link ItemIdProvider}, or null if it
+     * returns NO_ID for an item. Can be called on a background thread.
+     */
+    long[] getItemIdsInBackground(List<T> list) {
+        long[] ids = new long[list != null ? list.size() : 0];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = mItemIdProvider.getItemId(list.get(i));
+            if (ids[i] == RecyclerView.NO_ID) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return a copy of the item list that is never changed. The same copy is returned until the item
+     * list is changed through the adapter, so a diff against the current list only copies it once.
+     */
+    List<T> getItemListSnapshot() {
+        if (mItemListSnapshot == null || mItemListSnapshotVersion != mItemListVersion
+                || mItemListSnapshot.size() != getItemCount()) {
+            mItemListSnapshot = createItemListSnapshot(mItemList);
+            mItemListSnapshotVersion = mItemListVersion;
+        }
+        return mItemListSnapshot;
+    }
+
+    static <T> List<T> createItemListSnapshot(List<T> list) {
+        return list != null && !list.isEmpty()
+                ? Collections.unmodifiableList(new ArrayList<>(list)) : Collections.<T>emptyList();
+    }
+
+    /**
+     * @return the ids of all items. The same array is returned until the item list is changed through
+     * the adapter, so it must never be modified.
+     */
+    long[] getItemIdSnapshot() {
+        if (mItemIdSnapshot == null || mItemIdSnapshotVersion != mItemListVersion
+                || mItemIdSnapshot.length != getItemCount()) {
+            long[] ids = new long[getItemCount()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = getItemId(i);
+            }
+            mItemIdSnapshot = ids;
+            mItemIdSnapshotVersion = mItemListVersion;
+        }
+        return mItemIdSnapshot;
+    }
+
+    /**
+     * Enables order keys, a string per item that sorts the items in list order when compared with
+     * {@link String#compareTo}. When an item is added or moved only that item gets a new key,
+     * generated between the keys of its neighbours, so a move can be stored by updating one row.
+     * Keys are spread out again when they grow too long, which is reported to the
+     * {@link OrderKeyListener}.
+     * <p/>
+     * When the item list is set, items keep the key from {@link #getStoredOrderKey} if it is in
+     * order, other items get new keys.
+     */
+    public void setOrderKeysEnabled(boolean enabled) {
+        if (enabled == (mOrderKeys != null)) {
+            return;
+        }
+        mOrderKeys = enabled ? new LongObjectMap<String>() : null;
+        mDragOrderKey = null;
+        assignOrderKeys(false);
+    }
+
+    public boolean isOrderKeysEnabled() {
+        return mOrderKeys != null;
+    }
+
+    public void setOrderKeyListener(OrderKeyListener listener) {
+        mOrderKeyListener = listener;
+    }
+
+    /**
+     * @param generator generates the keys of added and moved items and of items without a key when
+     * the item list is set, null to use {@link OrderKeys}. When the keys are spread out again they
+     * are generated with {@link OrderKeys} and not with the generator, see
+     * {@link OrderKeyListener#onOrderKeysReassigned}.
+     */
+    public void setOrderKeyGenerator(OrderKeyGenerator generator) {
+        mOrderKeyGenerator = generator;
+    }
+
+    /**
+     * @return the order key of the item at pos, or null if order keys are not enabled. The dragged
+     * item has no key until it is dropped.
+     */
+    public String getOrderKey(int pos) {
+        if (mOrderKeys == null || pos < 0 || pos >= getItemCount()) {
+            return null;
+        }
+        return mOrderKeys.get(getItemId(pos));
+    }
+
+    /**
+     * Override to return the key an item was stored with, used when the item list is set with order
+     * keys enabled. Default is null, which gives the item a new key.
+     */
+    protected String getStoredOrderKey(T item) {
+        return null;
+    }
+
+    /**
+     * Gives every item a key in list order. Items keep their current or stored key if it is after
+     * the key of the item before, unless rebalance is true where all items get new evenly spread
+     * keys. The keys are updated in place, only items that get a new key are written.
+     */
+    private void assignOrderKeys(boolean rebalance) {
+        if (mOrderKeys == null) {
+            return;
+        }
+
+        int count = getItemCount();
+        String previousKey = null;
+        int runStart = 0;
+        List<Long> changedItemIds = new ArrayList<>();
+        for (int i = 0; i <= count; i++) {
+            String key = null;
+            long itemId = RecyclerView.NO_ID;
+            if (i < count) {
+                itemId = getItemId(i);
+                if (!rebalance) {
+                    key = mOrderKeys.get(itemId);
+                    if (key == null) {
+                        key = getStoredOrderKey(mItemList.get(i));
+                    }
+                    if (key != null && (!isValidOrderKey(key)
+                            || previousKey != null && key.compareTo(previousKey) <= 0)) {
+                        key = null;
+                    }
+                }
+                if (key == null) {
+                    continue;
+                }
+            }
+
+            // Spread new keys over the items without a key since the last kept key
+            String[] runKeys = rebalance ? OrderKeys.between(previousKey, key, i - runStart)
+                    : generateOrderKeys(previousKey, key, i - runStart);
+            for (int j = 0; j < runKeys.length; j++) {
+                long runItemId = getItemId(runStart + j);
+                if (!runKeys[j].equals(mOrderKeys.get(runItemId))) {
+                    mOrderKeys.put(runItemId, runKeys[j]);
+                    changedItemIds.add(runItemId);
+                }
+            }
+            if (i < count) {
+                if (key != mOrderKeys.get(itemId)) {
+                    // A stored key
+                    mOrderKeys.put(itemId, key);
+                }
+                previousKey = key;
+                runStart = i + 1;
+            }
+        }
+
+        if (mOrderKeys.size() > count) {
+            // Every item has a key now, drop the keys of items that are no longer in the list
+            if (mItemIdIndexDirty || mItemIdIndex.size() != count) {
+                rebuildItemIdIndex();
+            }
+            mOrderKeys.retainKeys(mItemIdIndex);
+        }
+        if (mDragItemId != RecyclerView.NO_ID) {
+            mDragOrderKey = mOrderKeys.remove(mDragItemId);
+        }
+        if (changedItemIds.size() > 1 || rebalance && !changedItemIds.isEmpty()) {
+            mOrderKeysReassignedCount++;
+        }
+        if (mOrderKeyListener != null && !changedItemIds.isEmpty()) {
+            if (rebalance) {
+                mOrderKeyListener.onOrderKeysReassigned();
+            } else {
+                for (long changedItemId : changedItemIds) {
+                    if (changedItemId != mDragItemId) {
+                        mOrderKeyListener.onOrderKeyChanged(changedItemId,
+                                mDragItemId == changedItemId ? mDragOrderKey
+                                        : mOrderKeys.get(changedItemId));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the item at pos a new key between the keys of the items around it.
+     */
+    private void updateOrderKey(int pos) {
+        if (mOrderKeys == null) {
+            return;
+        }
+
+        long itemId = getItemId(pos);
+        if (itemId == mDragItemId) {
+            // The dragged item gets its key when it is dropped
+            mOrderKeys.remove(itemId);
+            return;
+        }
+
+        String before = findOrderKey(pos - 1, -1);
+        String after = findOrderKey(pos + 1, 1);
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            // The list has been changed without going through the adapter
+            assignOrderKeys(false);
+            return;
+        }
+        String key = mOrderKeyGenerator != null ? mOrderKeyGenerator.between(before, after)
+                : OrderKeys.between(before, after);
+        if (key.length() > MAX_ORDER_KEY_LENGTH) {
+            assignOrderKeys(true);
+            return;
+        }
+        mOrderKeys.put(itemId, key);
+        if (mOrderKeyListener != null) {
+            mOrderKeyListener.onOrderKeyChanged(itemId, key);
+        }
+    }
+
+    private void updateOrderKeys(int pos, int count) {
+        if (mOrderKeys == null) {
+            return;
+        }
+        if (count == 1) {
+            updateOrderKey(pos);
+            return;
+        }
+
+        String before = findOrderKey(pos - 1, -1);
+        String after = findOrderKey(pos + count, 1);
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            assignOrderKeys(false);
+            return;
+        }
+        String[] keys = generateOrderKeys(before, after, count);
+        for (int i = 0; i < count; i++) {
+            mOrderKeys.put(getItemId(pos + i), keys[i]);
+        }
+        if (mDragItemId != RecyclerView.NO_ID) {
+            mOrderKeys.remove(mDragItemId);
+        }
+        mOrderKeysReassignedCount++;
+        if (mOrderKeyListener != null) {
+            for (int i = 0; i < count; i++) {
+                long itemId = getItemId(pos + i);
+                if (itemId != mDragItemId) {
+                    mOrderKeyListener.onOrderKeyChanged(itemId, keys[i]);
+                }
+            }
+        }
+    }
+
+    private String[] generateOrderKeys(String before, String after, int count) {
+        if (count == 0) {
+            return new String[0];
+        }
+        return mOrderKeyGenerator != null ? mOrderKeyGenerator.between(before, after, count)
+                : OrderKeys.between(before, after, count);
+    }
+
+    /**
+     * @return the first key found from pos in direction, skipping items without a key.
+     */
+    private String findOrderKey(int pos, int direction) {
+        int count = getItemCount();
+        for (; pos >= 0 && pos < count; pos += direction) {
+            String key = mOrderKeys.get(getItemId(pos));
+            if (key != null) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private void removeOrderKey(long itemId) {
+        if (mOrderKeys != null) {
+            mOrderKeys.remove(itemId);
+        }
+    }
+
+    private void onDragItemDropped(long itemId) {
+        String dragOrderKey = mDragOrderKey;
+        mDragOrderKey = null;
+        int pos = mOrderKeys != null ? getPositionForItemId(itemId) : RecyclerView.NO_POSITION;
+        if (pos == RecyclerView.NO_POSITION || mOrderKeys.containsKey(itemId)) {
+            return;
+        }
+
+        // An item dropped where it was picked up keeps its key
+        String before = findOrderKey(pos - 1, -1);
+        String after = findOrderKey(pos + 1, 1);
+        if (dragOrderKey != null && (before == null || before.compareTo(dragOrderKey) < 0)
+                && (after == null || dragOrderKey.compareTo(after) < 0)) {
+            mOrderKeys.put(itemId, dragOrderKey);
+            return;
+        }
+        updateOrderKey(pos);
+    }
+
+    /**
+     * @return true if the keys of other items than the last dropped item changed when it was dropped.
+     */
+    boolean hasDropReassignedOrderKeys() {
+        return mDropReassignedOrderKeys;
+    }
+
+    private static boolean isValidOrderKey(String key) {
+        try {
+            OrderKeys.between(key, null);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    boolean isDragging() {
+        return mDragItemId != RecyclerView.NO_ID;
+    }
+
     public List<T> getItemList() {
         return mItemList;
     }
@@ -70,8 +765,18 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
 
     public Object removeItem(int pos) {
         if (mItemList != null && mItemList.size() > pos && pos >= 0) {
+            long itemId = getItemId(pos);
             Object item = mItemList.remove(pos);
-            notifyItemRemoved(pos);
+            removeOrderKey(itemId);
+            if (!mItemIdIndexDirty) {
+                mItemIdIndex.remove(itemId);
+                invalidateItemIdIndex(pos);
+            }
+            mItemListVersion++;
+            getUpdateCallback().onRemoved(pos, 1);
+            if (getItemEditListener() != null) {
+                getItemEditListener().onItemRemoved(itemId);
+            }
             return item;
         }
         return null;
@@ -80,33 +785,324 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
     public void addItem(int pos, T item) {
         if (mItemList != null && mItemList.size() >= pos) {
             mItemList.add(pos, item);
-            notifyItemInserted(pos);
+            invalidateItemIdIndex(pos);
+            updateItemIdIndex(pos, pos);
+            mItemListVersion++;
+            updateOrderKey(pos);
+            getUpdateCallback().onInserted(pos, 1);
+            if (getItemEditListener() != null) {
+                getItemEditListener().onItemsAdded(pos, 1);
+            }
+        }
+    }
+
+    /**
+     * Replaces the item at pos in place. If the new item has the same id the item is notified as
+     * changed with the payload from the {@link ItemChangeCallback}, so the view holder is kept and
+     * only the changed parts need to be bound again.
+     *
+     * @return the replaced item or null if pos is outside the list.
+     */
+    public T replaceItem(int pos, T item) {
+        if (mItemList == null || pos < 0 || pos >= mItemList.size()) {
+            return null;
+        }
+
+        long oldItemId = getItemId(pos);
+        T oldItem = mItemList.set(pos, item);
+        long itemId = getItemId(pos);
+        mItemListVersion++;
+        if (itemId == oldItemId) {
+            getUpdateCallback().onChanged(pos, 1, getItemChangePayload(oldItem, item));
+        } else {
+            if (!mItemIdIndexDirty) {
+                mItemIdIndex.remove(oldItemId);
+                updateItemIdIndex(pos, pos);
+            }
+            if (mOrderKeys != null && mOrderKeys.containsKey(oldItemId)) {
+                // The new item takes the place and the key of the old item
+                mOrderKeys.put(itemId, mOrderKeys.remove(oldItemId));
+            }
+            getUpdateCallback().onChanged(pos, 1, null);
+        }
+        if (getItemEditListener() != null) {
+            getItemEditListener().onItemReplaced(pos, oldItemId);
+        }
+        return oldItem;
+    }
+
+    /**
+     * Adds all items at pos with one range notification.
+     */
+    public void addItems(int pos, Collection<? extends T> items) {
+        if (mItemList != null && mItemList.size() >= pos && pos >= 0 && !items.isEmpty()) {
+            mItemList.addAll(pos, items);
+            invalidateItemIdIndex(pos);
+            updateItemIdIndex(pos, pos + items.size() - 1);
+            mItemListVersion++;
+            updateOrderKeys(pos, items.size());
+            getUpdateCallback().onInserted(pos, items.size());
+            if (getItemEditListener() != null) {
+                getItemEditListener().onItemsAdded(pos, items.size());
+            }
+        }
+    }
+
+    /**
+     * Removes count items starting at fromPos with one range notification.
+     *
+     * @return the removed items or an empty list if the range is not within the item list.
+     */
+    public List<T> removeRange(int fromPos, int count) {
+        if (mItemList == null || fromPos < 0 || count <= 0 || fromPos + count > mItemList.size()) {
+            return Collections.emptyList();
+        }
+
+        for (int i = fromPos; i < fromPos + count; i++) {
+            long itemId = getItemId(i);
+            removeOrderKey(itemId);
+            if (!mItemIdIndexDirty) {
+                mItemIdIndex.remove(itemId);
+            }
+            if (getItemEditListener() != null) {
+                getItemEditListener().onItemRemoved(itemId);
+            }
+        }
+        List<T> range = mItemList.subList(fromPos, fromPos + count);
+        List<T> removed = new ArrayList<>(range);
+        range.clear();
+        invalidateItemIdIndex(fromPos);
+        mItemListVersion++;
+        getUpdateCallback().onRemoved(fromPos, count);
+        return removed;
+    }
+
+    /**
+     * Moves count items starting at fromPos so that the first of them ends up at toPos, the order of
+     * the moved items is kept.
+     */
+    public void moveRange(int fromPos, int count, int toPos) {
+        if (mItemList == null || fromPos < 0 || toPos < 0 || count <= 0
+                || fromPos + count > mItemList.size() || toPos + count > mItemList.size()
+                || fromPos == toPos) {
+            return;
+        }
+
+        List<T> range = mItemList.subList(fromPos, fromPos + count);
+        List<T> moved = new ArrayList<>(range);
+        range.clear();
+        mItemList.addAll(toPos, moved);
+        updateItemIdIndex(Math.min(fromPos, toPos), Math.max(fromPos, toPos) + count - 1);
+
+        mItemListVersion++;
+        updateOrderKeys(toPos, count);
+        // There is no range move notification, the moves are animated together in the next layout
+        for (int i = 0; i < count; i++) {
+            if (toPos < fromPos) {
+                getUpdateCallback().onMoved(fromPos + i, toPos + i);
+            } else {
+                getUpdateCallback().onMoved(fromPos, toPos + count - 1);
+            }
+        }
+        if (getItemEditListener() != null) {
+            getItemEditListener().onItemsMoved(toPos, count);
+        }
+    }
+
+    /**
+     * Removes all items with the given ids in one pass over the item list, ids not in the adapter are
+     * ignored. Every consecutive run of removed items gets one range notification.
+     *
+     * @return the number of removed items.
+     */
+    public int removeItemsById(long[] itemIds) {
+        if (mItemList == null || itemIds == null || itemIds.length == 0) {
+            return 0;
+        }
+
+        int[] positions = new int[itemIds.length];
+        int count = 0;
+        boolean rebuilt = false;
+        for (long itemId : itemIds) {
+            // Ids not in the adapter are expected here, only index the list again for the first one
+            int pos = findPositionForItemId(itemId, !rebuilt);
+            if (pos != RecyclerView.NO_POSITION) {
+                positions[count++] = pos;
+            } else {
+                rebuilt = true;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        // Sort and drop duplicate positions
+        Arrays.sort(positions, 0, count);
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (positions[i] != positions[unique - 1]) {
+                positions[unique++] = positions[i];
+            }
+        }
+
+        for (int i = 0; i < unique; i++) {
+            long itemId = getItemId(positions[i]);
+            removeOrderKey(itemId);
+            if (!mItemIdIndexDirty) {
+                mItemIdIndex.remove(itemId);
+            }
+            if (getItemEditListener() != null) {
+                getItemEditListener().onItemRemoved(itemId);
+            }
+        }
+
+        // Compact the kept items to the front and cut off the tail
+        int size = mItemList.size();
+        int write = positions[0];
+        int next = 0;
+        for (int read = positions[0]; read < size; read++) {
+            if (next < unique && positions[next] == read) {
+                next++;
+            } else {
+                mItemList.set(write++, mItemList.get(read));
+            }
+        }
+        mItemList.subList(write, size).clear();
+        invalidateItemIdIndex(positions[0]);
+
+        mItemListVersion++;
+        // Notify from the last run so the positions of the earlier runs are still valid
+        int i = unique - 1;
+        while (i >= 0) {
+            int runEnd = positions[i];
+            while (i > 0 && positions[i - 1] == positions[i] - 1) {
+                i--;
+            }
+            getUpdateCallback().onRemoved(positions[i], runEnd - positions[i] + 1);
+            i--;
         }
+        return unique;
     }
 
     public void changeItemPosition(int fromPos, int toPos) {
         if (mItemList != null && mItemList.size() > fromPos && mItemList.size() > toPos) {
-            T item = mItemList.remove(fromPos);
-            mItemList.add(toPos, item);
-            notifyItemMoved(fromPos, toPos);
+            if (mItemList instanceof IndexedTreeList) {
+                ((IndexedTreeList<T>) mItemList).move(fromPos, toPos);
+            } else {
+                T item = mItemList.remove(fromPos);
+                mItemList.add(toPos, item);
+            }
+            updateItemIdIndex(Math.min(fromPos, toPos), Math.max(fromPos, toPos));
+            mItemListVersion++;
+            updateOrderKey(toPos);
+            getUpdateCallback().onMoved(fromPos, toPos);
+            if (getItemEditListener() != null) {
+                getItemEditListener().onItemsMoved(toPos, 1);
+            }
         }
     }
 
     public void swapItems(int pos1, int pos2) {
         if (mItemList != null && mItemList.size() > pos1 && mItemList.size() > pos2) {
             Collections.swap(mItemList, pos1, pos2);
-            notifyDataSetChanged();
+            mItemListVersion++;
+            updateItemIdIndex(pos1, pos1);
+            updateItemIdIndex(pos2, pos2);
+            if (pos1 != pos2) {
+                updateOrderKey(Math.min(pos1, pos2));
+                updateOrderKey(Math.max(pos1, pos2));
+            }
+
+            // A swap is the first item moved to the second position and the second item moved back
+            int fromPos = Math.min(pos1, pos2);
+            int toPos = Math.max(pos1, pos2);
+            if (fromPos != toPos) {
+                getUpdateCallback().onMoved(fromPos, toPos);
+                if (toPos - fromPos > 1) {
+                    getUpdateCallback().onMoved(toPos - 1, fromPos);
+                }
+                if (getItemEditListener() != null) {
+                    getItemEditListener().onItemsMoved(fromPos, 1);
+                    getItemEditListener().onItemsMoved(toPos, 1);
+                }
+            }
         }
     }
 
+    /**
+     * @return the position of the item with the id or NO_POSITION if there is no such item. Usually
+     * O(1), but after an item has been added or removed the positions after it are indexed again
+     * lazily up to the item that is looked up. An id that is not found makes the whole list be indexed
+     * again, in case the list has been changed without going through the adapter.
+     */
     public int getPositionForItemId(long id) {
+        return findPositionForItemId(id, true);
+    }
+
+    private int findPositionForItemId(long id, boolean rebuildOnMiss) {
+        if (id == RecyclerView.NO_ID) {
+            return RecyclerView.NO_POSITION;
+        }
         int count = getItemCount();
-        for (int i = 0; i < count; i++) {
-            if (id == getItemId(i)) {
-                return i;
+        boolean rebuilt = false;
+        if (mItemIdIndexDirty || mItemIdIndex.size() != count) {
+            rebuildItemIdIndex();
+            rebuilt = true;
+        }
+
+        int pos = mItemIdIndex.get(id, RecyclerView.NO_POSITION);
+        if (pos != RecyclerView.NO_POSITION && pos < mItemIdIndexValidCount && getItemId(pos) == id) {
+            return pos;
+        }
+        if (pos == RecyclerView.NO_POSITION || pos >= mItemIdIndexValidCount) {
+            // Index the shifted positions until the item is found
+            while (mItemIdIndexValidCount < count) {
+                int i = mItemIdIndexValidCount++;
+                long itemId = getItemId(i);
+                mItemIdIndex.put(itemId, i);
+                if (itemId == id) {
+                    return i;
+                }
             }
         }
-        return RecyclerView.NO_POSITION;
+        if (!rebuildOnMiss || rebuilt) {
+            return RecyclerView.NO_POSITION;
+        }
+
+        // The item list has been changed without going through the adapter, index it again
+        rebuildItemIdIndex();
+        return mItemIdIndex.get(id, RecyclerView.NO_POSITION);
+    }
+
+    private void rebuildItemIdIndex() {
+        int count = getItemCount();
+        mItemIdIndex.reset(count);
+        for (int i = 0; i < count; i++) {
+            mItemIdIndex.put(getItemId(i), i);
+        }
+        mItemIdIndexValidCount = count;
+        mItemIdIndexDirty = false;
+    }
+
+    /**
+     * Updates the id index for all items between fromPos and toPos, both inclusive. Used for items
+     * that have been added or have changed places without shifting the items after them.
+     */
+    private void updateItemIdIndex(int fromPos, int toPos) {
+        if (mItemIdIndexDirty) {
+            return;
+        }
+        for (int i = fromPos; i <= toPos; i++) {
+            mItemIdIndex.put(getItemId(i), i);
+        }
+    }
+
+    /**
+     * Marks the positions from pos and on as shifted after an add or remove. They are indexed again
+     * when looked up, so the index costs nothing extra for the add or remove itself.
+     */
+    private void invalidateItemIdIndex(int pos) {
+        mItemIdIndexValidCount = Math.min(mItemIdIndexValidCount, pos);
     }
 
     @Override
@@ -129,11 +1125,50 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
     //    return isScaled;
     //}
 
+    @Override
+    public void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        if (payloads.contains(DragPayload.DROP_TARGET_CHANGED) && !isDropTargetBoundInDragState()) {
+            // The drop target is shown from onBindViewHolder, which also binds any other payloads
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        holder.mItemId = getItemId(position);
+        holder.setDragStartCallback(mDragStartCallback);
+        onBindDragState(holder, position);
+        if (!hasOnlyDragPayloads(payloads)) {
+            onBindChangePayloads(holder, position, payloads);
+        }
+    }
+
+    /**
+     * Override and return true if {@link #onBindDragState} shows the drop target from
+     * {@link #getDropTargetId}, then a new drop target only binds the drag state of the two items.
+     * Default is false, which binds the old and new drop target with onBindViewHolder.
+     */
+    protected boolean isDropTargetBoundInDragState() {
+        return false;
+    }
+
+    /**
+     * Called when an item has been changed with payloads from the {@link ItemChangeCallback}, the
+     * drag state has already been bound. payloads can also contain {@link DragPayload}s that should
+     * be ignored. Override to only bind what has changed, default binds the whole item again.
+     */
+    protected void onBindChangePayloads(VH holder, int position, List<Object> payloads) {
+        onBindViewHolder(holder, position);
+    }
+
     @Override
     public void onBindViewHolder(VH holder, int position) {
         long itemId = getItemId(position);
         holder.mItemId = itemId;
-        holder.itemView.setVisibility(mDragItemId == itemId ? View.INVISIBLE : View.VISIBLE);
+        onBindDragState(holder, position);
         //if (!isInit && holder.isScaled != isScaled) {
             //ScaleUtil.scaleViewAndChildren(holder.itemView, ScaleUtil.getScale(isScaled), 0);
             //ScaleUtil.scaleTextView(holder.tex);
@@ -142,6 +1177,24 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
         holder.setDragStartCallback(mDragStartCallback);
     }
 
+    /**
+     * Binds the drag state of an item, this is called on every bind and is the only thing called
+     * when the drag item has changed. Override to show drag state of your own, see
+     * {@link #isDropTargetBoundInDragState} to also show the drop target here.
+     */
+    protected void onBindDragState(VH holder, int position) {
+        holder.itemView.setVisibility(mDragItemId == holder.mItemId ? View.INVISIBLE : View.VISIBLE);
+    }
+
+    private static boolean hasOnlyDragPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (!(payload instanceof DragPayload)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onViewRecycled(VH holder) {
         super.onViewRecycled(holder);
@@ -152,8 +1205,31 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
         mDragStartCallback = dragStartedListener;
     }
 
+    void setItemEditListener(ItemEditListener listener) {
+        mItemEditListener = listener;
+    }
+
+    /**
+     * @return the listener to report an edit to, or null if there is none or the edit is part of a
+     * drag.
+     */
+    private ItemEditListener getItemEditListener() {
+        return isDragging() ? null : mItemEditListener;
+    }
+
     void setDragItemId(long dragItemId) {
+        long previousDragItemId = mDragItemId;
         mDragItemId = dragItemId;
+        if (dragItemId != RecyclerView.NO_ID) {
+            mDragOrderKey = mOrderKeys != null ? mOrderKeys.get(dragItemId) : null;
+        } else if (previousDragItemId != RecyclerView.NO_ID) {
+            int reassignedCount = mOrderKeysReassignedCount;
+            onDragItemDropped(previousDragItemId);
+            mDropReassignedOrderKeys = reassignedCount != mOrderKeysReassignedCount;
+        }
+        if (dragItemId == RecyclerView.NO_ID && mHasPendingSubmit) {
+            submitList(mPendingSubmitList);
+        }
     }
 
     void setDropTargetId(long dropTargetId) {
@@ -164,9 +1240,24 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
         return mDropTargetId;
     }
 
+    public long getDragItemId() {
+        return mDragItemId;
+    }
+
+    void notifyDragStateChanged(long itemId, DragPayload payload) {
+        if (itemId == RecyclerView.NO_ID) {
+            return;
+        }
+        int pos = getPositionForItemId(itemId);
+        if (pos != RecyclerView.NO_POSITION) {
+            getUpdateCallback().onChanged(pos, 1, payload);
+        }
+    }
+
     public void scale() {
         isScaled = !isScaled;
         isInit = false;
+        dispatchNotifyBatch();
         notifyDataSetChanged();
     }
 
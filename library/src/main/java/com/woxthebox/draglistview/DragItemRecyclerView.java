@@ -20,6 +20,7 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.content.Context;
 import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
@@ -68,6 +69,16 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     private boolean mScrollingEnabled = true;
     private boolean mDisableReorderWhenDragging;
     private boolean mDragEnabled = true;
+    private boolean mAdapterDetached;
+    private long mColumnId = NO_ID;
+    private int mColumn = NO_POSITION;
+    private long mDetachedScrollItemId = NO_ID;
+    private int mDetachedScrollOffset;
+    private int mDetachedWidth;
+    private int mDetachedHeight;
+    private int mGhostPosition = NO_POSITION;
+    private int mGhostHeight;
+    private float mGhostY;
 
     public DragItemRecyclerView(Context context) {
         super(context);
@@ -89,6 +100,22 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         mTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
 
         addItemDecoration(new ItemDecoration() {
+            @Override
+            public void getItemOffsets(Rect outRect, View view, RecyclerView parent, State state) {
+                super.getItemOffsets(outRect, view, parent, state);
+                if (mGhostPosition == NO_POSITION) {
+                    return;
+                }
+
+                // The ghost is a gap before the item at the ghost position or after the last item
+                int pos = parent.getChildAdapterPosition(view);
+                if (pos == mGhostPosition) {
+                    outRect.top = mGhostHeight;
+                } else if (pos == state.getItemCount() - 1 && mGhostPosition >= state.getItemCount()) {
+                    outRect.bottom = mGhostHeight;
+                }
+            }
+
             @Override
             public void onDraw(Canvas c, RecyclerView parent, State state) {
                 super.onDraw(c, parent, state);
@@ -207,6 +234,128 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
 
         super.setAdapter(adapter);
         mAdapter = (DragItemAdapter) adapter;
+        mAdapterDetached = false;
+        mDetachedScrollItemId = NO_ID;
+    }
+
+    /**
+     * @return the adapter of the list, also when it has been detached with {@link #detachAdapter()}.
+     */
+    DragItemAdapter getDragItemAdapter() {
+        return mAdapter;
+    }
+
+    long getColumnId() {
+        return mColumnId;
+    }
+
+    /**
+     * @return the index of the column of the list in its board, kept up to date by the board.
+     */
+    int getColumn() {
+        return mColumn;
+    }
+
+    void setColumn(int column) {
+        mColumn = column;
+    }
+
+    void setColumnId(long columnId) {
+        mColumnId = columnId;
+    }
+
+    boolean isAdapterDetached() {
+        return mAdapterDetached;
+    }
+
+    /**
+     * Removes the adapter from the list so all item views are recycled. The list keeps its measured
+     * size while detached and the first visible item is kept as a scroll anchor, which is scrolled
+     * to again by {@link #reattachAdapter()}.
+     */
+    void detachAdapter() {
+        if (mAdapterDetached || mAdapter == null || isDragging() || mGhostPosition != NO_POSITION) {
+            return;
+        }
+
+        mDetachedScrollItemId = getFirstVisibleItemId();
+        mDetachedScrollOffset = getFirstVisibleItemOffset();
+        mDetachedWidth = getMeasuredWidth();
+        mDetachedHeight = getMeasuredHeight();
+        super.setAdapter(null);
+        mAdapterDetached = true;
+    }
+
+    void reattachAdapter() {
+        if (!mAdapterDetached) {
+            return;
+        }
+
+        mAdapterDetached = false;
+        super.setAdapter(mAdapter);
+        int row = mAdapter.getPositionForItemId(mDetachedScrollItemId);
+        if (row != NO_POSITION) {
+            ((LinearLayoutManager) getLayoutManager()).scrollToPositionWithOffset(row, mDetachedScrollOffset);
+        }
+        mDetachedScrollItemId = NO_ID;
+    }
+
+    /**
+     * @return the id of the first visible item, or of the item that was first when the adapter was
+     * detached. NO_ID if there is no such item.
+     */
+    long getFirstVisibleItemId() {
+        if (mAdapterDetached) {
+            return mDetachedScrollItemId;
+        }
+        View view = findFirstVisibleItemView();
+        return view != null ? getChildItemId(view) : NO_ID;
+    }
+
+    /**
+     * @return the offset of the item from {@link #getFirstVisibleItemId()} from the top of the list.
+     */
+    int getFirstVisibleItemOffset() {
+        if (mAdapterDetached) {
+            return mDetachedScrollOffset;
+        }
+        View view = findFirstVisibleItemView();
+        return view != null ? view.getTop() - getPaddingTop() : 0;
+    }
+
+    /**
+     * Scrolls to the item with an offset from the top of the list, a detached list scrolls to it
+     * when it is attached again.
+     */
+    void scrollToItemWithOffset(long itemId, int offset) {
+        if (mAdapterDetached) {
+            mDetachedScrollItemId = itemId;
+            mDetachedScrollOffset = offset;
+            return;
+        }
+        int row = mAdapter != null ? mAdapter.getPositionForItemId(itemId) : NO_POSITION;
+        if (row != NO_POSITION) {
+            ((LinearLayoutManager) getLayoutManager()).scrollToPositionWithOffset(row, offset);
+        }
+    }
+
+    private View findFirstVisibleItemView() {
+        if (getAdapter() == null || getLayoutManager() == null) {
+            return null;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
+        int row = layoutManager.findFirstVisibleItemPosition();
+        return row != NO_POSITION ? layoutManager.findViewByPosition(row) : null;
+    }
+
+    @Override
+    protected void onMeasure(int widthSpec, int heightSpec) {
+        if (mAdapterDetached) {
+            // Without an adapter a wrap content list would collapse, keep the size it had when detached
+            setMeasuredDimension(resolveSize(mDetachedWidth, widthSpec), resolveSize(mDetachedHeight, heightSpec));
+            return;
+        }
+        super.onMeasure(widthSpec, heightSpec);
     }
 
     @Override
@@ -222,6 +371,9 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         if (isDragging()) {
             scrollBy(dx, dy);
             updateDragPositionAndScroll();
+        } else if (mGhostPosition != NO_POSITION) {
+            scrollBy(dx, dy);
+            updateGhost(mGhostY);
         } else {
             mAutoScroller.stopAutoScroll();
         }
@@ -295,8 +447,13 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
         if (shouldChangeItemPosition(newPos)) {
             if (mDisableReorderWhenDragging) {
-                mAdapter.setDropTargetId(mAdapter.getItemId(newPos));
-                mAdapter.notifyDataSetChanged();
+                long oldDropTargetId = mAdapter.getDropTargetId();
+                long newDropTargetId = mAdapter.getItemId(newPos);
+                if (oldDropTargetId != newDropTargetId) {
+                    mAdapter.setDropTargetId(newDropTargetId);
+                    mAdapter.notifyDragStateChanged(oldDropTargetId, DragItemAdapter.DragPayload.DROP_TARGET_CHANGED);
+                    mAdapter.notifyDragStateChanged(newDropTargetId, DragItemAdapter.DragPayload.DROP_TARGET_CHANGED);
+                }
             } else {
                 int pos = layoutManager.findFirstVisibleItemPosition();
                 View posView = layoutManager.findViewByPosition(pos);
@@ -342,18 +499,24 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
 
         // Start auto scroll if at the edge
         if (layoutManager.getOrientation() == LinearLayoutManager.VERTICAL) {
-            if (mDragItem.getY() > getHeight() - view.getHeight() / 2 && !lastItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.UP);
-            } else if (mDragItem.getY() < view.getHeight() / 2 && !firstItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.DOWN);
+            int scrollEdge = view.getHeight() / 2;
+            if (mDragItem.getY() > getHeight() - scrollEdge && !lastItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.UP,
+                        (mDragItem.getY() - (getHeight() - scrollEdge)) / scrollEdge);
+            } else if (mDragItem.getY() < scrollEdge && !firstItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.DOWN,
+                        (scrollEdge - mDragItem.getY()) / scrollEdge);
             } else {
                 mAutoScroller.stopAutoScroll();
             }
         } else {
-            if (mDragItem.getX() > getWidth() - view.getWidth() / 2 && !lastItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT);
-            } else if (mDragItem.getX() < view.getWidth() / 2 && !firstItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT);
+            int scrollEdge = view.getWidth() / 2;
+            if (mDragItem.getX() > getWidth() - scrollEdge && !lastItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT,
+                        (mDragItem.getX() - (getWidth() - scrollEdge)) / scrollEdge);
+            } else if (mDragItem.getX() < scrollEdge && !firstItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT,
+                        (scrollEdge - mDragItem.getX()) / scrollEdge);
             } else {
                 mAutoScroller.stopAutoScroll();
             }
@@ -380,7 +543,7 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         updateDragPositionAndScroll();
 
         mAdapter.setDragItemId(mDragItemId);
-        mAdapter.notifyDataSetChanged();
+        mAdapter.notifyDragStateChanged(mDragItemId, DragItemAdapter.DragPayload.DRAG_ITEM_CHANGED);
         if (mListener != null) {
             mListener.onDragStarted(mDragItemPosition, mDragItem.getX(), mDragItem.getY());
         }
@@ -405,7 +568,6 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         if (mListener != null) {
             mListener.onDragging(mDragItemPosition, x, y);
         }
-        invalidate();
     }
 
     void onDragEnded() {
@@ -423,7 +585,9 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
                 mAdapter.swapItems(mDragItemPosition, newPos);
                 mDragItemPosition = newPos;
             }
+            long dropTargetId = mAdapter.getDropTargetId();
             mAdapter.setDropTargetId(NO_ID);
+            mAdapter.notifyDragStateChanged(dropTargetId, DragItemAdapter.DragPayload.DROP_TARGET_CHANGED);
         }
 
         // Post so layout is done before we start end animation
@@ -449,9 +613,11 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     }
 
     private void onDragItemAnimationEnd() {
+        long dropTargetId = mAdapter.getDropTargetId();
         mAdapter.setDragItemId(NO_ID);
         mAdapter.setDropTargetId(NO_ID);
-        mAdapter.notifyDataSetChanged();
+        mAdapter.notifyDragStateChanged(mDragItemId, DragItemAdapter.DragPayload.DROP_COMMITTED);
+        mAdapter.notifyDragStateChanged(dropTargetId, DragItemAdapter.DragPayload.DROP_TARGET_CHANGED);
 
         mDragState = DragState.DRAG_ENDED;
         if (mListener != null) {
@@ -464,6 +630,70 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         invalidate();
     }
 
+    void stopDragAutoScroll() {
+        mAutoScroller.stopAutoScroll();
+    }
+
+    /**
+     * Shows a gap with the given height where an item dragged from another list would be dropped,
+     * without adding the item to the adapter. The gap follows y until {@link #endGhost()}.
+     */
+    void startGhost(float y, int height) {
+        mGhostHeight = height;
+        updateGhost(y);
+    }
+
+    void updateGhost(float y) {
+        mGhostY = y;
+        int pos = getGhostPositionForY(y);
+        if (pos != mGhostPosition && (mDragCallback == null || mDragCallback.canDropItemAtPosition(pos))) {
+            mGhostPosition = pos;
+            invalidateItemDecorations();
+        }
+        if (mGhostPosition == NO_POSITION) {
+            return;
+        }
+
+        int scrollEdge = mGhostHeight / 2;
+        if (scrollEdge > 0 && y > getHeight() - scrollEdge && canScrollVertically(1)) {
+            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.UP,
+                    (y - (getHeight() - scrollEdge)) / scrollEdge);
+        } else if (scrollEdge > 0 && y < scrollEdge && canScrollVertically(-1)) {
+            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.DOWN,
+                    (scrollEdge - y) / scrollEdge);
+        } else {
+            mAutoScroller.stopAutoScroll();
+        }
+    }
+
+    void endGhost() {
+        mAutoScroller.stopAutoScroll();
+        if (mGhostPosition != NO_POSITION) {
+            mGhostPosition = NO_POSITION;
+            invalidateItemDecorations();
+        }
+    }
+
+    int getGhostPosition() {
+        return mGhostPosition;
+    }
+
+    private int getGhostPositionForY(float y) {
+        int lastPos = NO_POSITION;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            int pos = getChildAdapterPosition(child);
+            if (pos == NO_POSITION) {
+                continue;
+            }
+            if (y < child.getTop() + child.getHeight() / 2) {
+                return pos;
+            }
+            lastPos = Math.max(lastPos, pos);
+        }
+        return lastPos + 1;
+    }
+
     int getDragPositionForY(float y) {
         View child = findChildView(0, y);
         int pos;
@@ -484,8 +714,10 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     }
 
     void addDragItemAndStart(float y, Object item, long itemId) {
-        int pos = getDragPositionForY(y);
+        addDragItemAtPositionAndStart(getDragPositionForY(y), item, itemId);
+    }
 
+    void addDragItemAtPositionAndStart(int pos, Object item, long itemId) {
         mDragState = DragState.DRAG_STARTED;
         mDragItemId = itemId;
         mAdapter.setDragItemId(mDragItemId);
@@ -17,6 +17,27 @@ public class DragLayoutManager extends LinearLayoutManager {
     }
 
     private int[] mMeasuredDimension = new int[2];
+    private boolean mBoundedMeasureEnabled = true;
+    private int mMaxMeasureSize;
+
+    /**
+     * @param enabled true if items should only be measured until the available size is filled, the
+     * size of the remaining items is then estimated from the measured ones. If false all items are
+     * measured on every measure pass. Enabled by default.
+     */
+    public void setBoundedMeasureEnabled(boolean enabled) {
+        mBoundedMeasureEnabled = enabled;
+        requestLayout();
+    }
+
+    /**
+     * @param maxSize max size in pixels to measure items for when bounded measure is enabled, also
+     * when the parent does not limit the size. Set to 0 to only use the size given by the parent.
+     */
+    public void setMaxMeasureSize(int maxSize) {
+        mMaxMeasureSize = maxSize;
+        requestLayout();
+    }
 
     @Override
     public void onMeasure(RecyclerView.Recycler recycler, RecyclerView.State state, int widthSpec,
@@ -25,13 +46,17 @@ public class DragLayoutManager extends LinearLayoutManager {
         final int heightMode = View.MeasureSpec.getMode(heightSpec);
         final int widthSize = View.MeasureSpec.getSize(widthSpec);
         final int heightSize = View.MeasureSpec.getSize(heightSpec);
+        final int itemCount = getItemCount();
+        final int measureLimit = getOrientation() == HORIZONTAL
+                ? getMeasureLimit(widthMode, widthSize) : getMeasureLimit(heightMode, heightSize);
         int width = 0;
         int height = 0;
-        for (int i = 0; i < getItemCount(); i++) {
+        int measuredCount = 0;
+        for (int i = 0; i < itemCount; i++) {
             if (getOrientation() == HORIZONTAL) {
 
                 measureScrapChild(recycler, i,
-                        View.MeasureSpec.makeMeasureSpec(i, View.MeasureSpec.UNSPECIFIED),
+                        View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
                         heightSpec, mMeasuredDimension);
 
                 width = width + mMeasuredDimension[0];
@@ -40,13 +65,28 @@ public class DragLayoutManager extends LinearLayoutManager {
                 }
             } else {
                 measureScrapChild(recycler, i, widthSpec,
-                        View.MeasureSpec.makeMeasureSpec(i, View.MeasureSpec.UNSPECIFIED),
+                        View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
                         mMeasuredDimension);
                 height = height + mMeasuredDimension[1];
                 if (i == 0) {
                     width = mMeasuredDimension[0];
                 }
             }
+
+            measuredCount++;
+            if ((getOrientation() == HORIZONTAL ? width : height) >= measureLimit) {
+                break;
+            }
+        }
+
+        // Estimate the size of the items that were not measured from the measured ones
+        if (measuredCount > 0 && measuredCount < itemCount) {
+            int remainingCount = itemCount - measuredCount;
+            if (getOrientation() == HORIZONTAL) {
+                width += (int) Math.min(Integer.MAX_VALUE / 2, (long) width * remainingCount / measuredCount);
+            } else {
+                height += (int) Math.min(Integer.MAX_VALUE / 2, (long) height * remainingCount / measuredCount);
+            }
         }
         switch (widthMode) {
             case View.MeasureSpec.EXACTLY:
@@ -65,6 +105,18 @@ public class DragLayoutManager extends LinearLayoutManager {
         setMeasuredDimension(width, height);
     }
 
+    private int getMeasureLimit(int mode, int size) {
+        if (!mBoundedMeasureEnabled) {
+            return Integer.MAX_VALUE;
+        }
+
+        int limit = mode == View.MeasureSpec.UNSPECIFIED ? Integer.MAX_VALUE : size;
+        if (mMaxMeasureSize > 0) {
+            limit = Math.min(limit, mMaxMeasureSize);
+        }
+        return limit;
+    }
+
     private void measureScrapChild(RecyclerView.Recycler recycler, int position, int widthSpec,
             int heightSpec, int[] measuredDimension) {
         try {
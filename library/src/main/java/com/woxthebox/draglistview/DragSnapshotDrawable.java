@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+/**
+ * Drawable showing a snapshot of a view. The bitmap behind it is reused between snapshots and only
+ * grows when a bigger view than any before is captured, so repeated drags don't allocate anything.
+ */
+class DragSnapshotDrawable extends Drawable {
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect mSrcRect = new Rect();
+    private final Canvas mCanvas = new Canvas();
+    private Bitmap mBitmap;
+    private Bitmap.Config mConfig = Bitmap.Config.ARGB_8888;
+    private float mScale = 1;
+
+    void setConfig(Bitmap.Config config) {
+        if (mConfig != config) {
+            mConfig = config;
+            release();
+        }
+    }
+
+    void setScale(float scale) {
+        if (scale <= 0 || scale > 1) {
+            throw new IllegalArgumentException("Scale must be larger than 0 and at most 1, was " + scale);
+        }
+        mScale = scale;
+    }
+
+    void capture(View view) {
+        int width = Math.max(1, (int) Math.ceil(view.getWidth() * mScale));
+        int height = Math.max(1, (int) Math.ceil(view.getHeight() * mScale));
+        if (mBitmap == null || mBitmap.getWidth() < width || mBitmap.getHeight() < height) {
+            int bitmapWidth = mBitmap == null ? width : Math.max(width, mBitmap.getWidth());
+            int bitmapHeight = mBitmap == null ? height : Math.max(height, mBitmap.getHeight());
+            mBitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, mConfig);
+            mCanvas.setBitmap(mBitmap);
+        }
+
+        mSrcRect.set(0, 0, width, height);
+        int saveCount = mCanvas.save();
+        mCanvas.clipRect(0, 0, width, height);
+        mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        mCanvas.scale(mScale, mScale);
+        view.draw(mCanvas);
+        mCanvas.restoreToCount(saveCount);
+        invalidateSelf();
+    }
+
+    /**
+     * Drops the pooled bitmap, the next capture will allocate a new one.
+     */
+    void release() {
+        mBitmap = null;
+        mCanvas.setBitmap(null);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mBitmap != null) {
+            canvas.drawBitmap(mBitmap, mSrcRect, getBounds(), mPaint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return mConfig == Bitmap.Config.RGB_565 && mPaint.getAlpha() == 255 ? PixelFormat.OPAQUE : PixelFormat.TRANSLUCENT;
+    }
+}
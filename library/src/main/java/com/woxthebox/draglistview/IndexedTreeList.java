@@ -0,0 +1,236 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.AbstractList;
+import java.util.Collection;
+
+/**
+ * A list backed by a balanced tree where every node knows the size of its subtree. Get, set, add
+ * and remove at any index are all O(log n), which makes it a better item list than an ArrayList
+ * for {@link DragItemAdapter} when a column holds tens of thousands of items, as every reorder
+ * while dragging is a remove followed by an add.
+ */
+public class IndexedTreeList<T> extends AbstractList<T> {
+
+    private static final class Node<T> {
+        T value;
+        Node<T> left;
+        Node<T> right;
+        int size = 1;
+        int height = 1;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private Node<T> mRoot;
+
+    public IndexedTreeList() {
+    }
+
+    public IndexedTreeList(Collection<? extends T> items) {
+        Object[] array = items.toArray();
+        mRoot = build(array, 0, array.length - 1);
+    }
+
+    @Override
+    public int size() {
+        return size(mRoot);
+    }
+
+    @Override
+    public T get(int index) {
+        return node(index).value;
+    }
+
+    @Override
+    public T set(int index, T item) {
+        Node<T> node = node(index);
+        T oldValue = node.value;
+        node.value = item;
+        return oldValue;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        mRoot = insert(mRoot, index, new Node<>(item));
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T value = node(index).value;
+        mRoot = delete(mRoot, index);
+        modCount++;
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        mRoot = null;
+        modCount++;
+    }
+
+    /**
+     * Moves the item at fromIndex so that it ends up at toIndex, same as a remove followed by an add
+     * but without allocating a new node.
+     */
+    public void move(int fromIndex, int toIndex) {
+        if (toIndex < 0 || toIndex >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + toIndex + ", Size: " + size());
+        }
+        Node<T> node = node(fromIndex);
+        mRoot = delete(mRoot, fromIndex);
+        node.left = null;
+        node.right = null;
+        node.size = 1;
+        node.height = 1;
+        mRoot = insert(mRoot, toIndex, node);
+        modCount++;
+    }
+
+    private Node<T> node(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        Node<T> node = mRoot;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<T> build(Object[] items, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node<T> node = new Node<>((T) items[middle]);
+        node.left = build(items, from, middle - 1);
+        node.right = build(items, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node<T> insert(Node<T> root, int index, Node<T> node) {
+        if (root == null) {
+            return node;
+        }
+        int leftSize = size(root.left);
+        if (index <= leftSize) {
+            root.left = insert(root.left, index, node);
+        } else {
+            root.right = insert(root.right, index - leftSize - 1, node);
+        }
+        return balance(root);
+    }
+
+    private Node<T> delete(Node<T> root, int index) {
+        int leftSize = size(root.left);
+        if (index < leftSize) {
+            root.left = delete(root.left, index);
+        } else if (index > leftSize) {
+            root.right = delete(root.right, index - leftSize - 1);
+        } else {
+            if (root.left == null) {
+                return root.right;
+            }
+            if (root.right == null) {
+                return root.left;
+            }
+            // Replace the removed node with the first node of the right subtree
+            Node<T> successor = root.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteFirst(root.right);
+            successor.left = root.left;
+            return balance(successor);
+        }
+        return balance(root);
+    }
+
+    private Node<T> deleteFirst(Node<T> root) {
+        if (root.left == null) {
+            return root.right;
+        }
+        root.left = deleteFirst(root.left);
+        return balance(root);
+    }
+
+    private Node<T> balance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node<?> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
@@ -1,10 +1,8 @@
 package com.woxthebox.draglistview;
 
 import android.content.Context;
-import android.support.v7.widget.DefaultItemAnimator;
-import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.LinearLayout;
 
@@ -26,25 +24,22 @@ public class KanbanBoard extends BoardView {
     }
 
     public DragItemRecyclerView addColumnLast(DragItemAdapter adapter, View header) {
-        final DragItemRecyclerView recyclerView = (DragItemRecyclerView) LayoutInflater.from(getContext()).inflate(R.layout.drag_item_recycler_view, this, false);
-        recyclerView.setHorizontalScrollBarEnabled(false);
-        recyclerView.setVerticalScrollBarEnabled(false);
-        recyclerView.setMotionEventSplittingEnabled(false);
-        recyclerView.setLayoutParams(new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.MATCH_PARENT));
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        recyclerView.setItemAnimator(new DefaultItemAnimator());
+        final DragItemRecyclerView recyclerView = createColumnList(false);
         recyclerView.setAdapter(adapter);
+        setItemEditListener(recyclerView);
 
-        LinearLayout layout = new LinearLayout(getContext());
-        layout.setOrientation(LinearLayout.VERTICAL);
+        LinearLayout layout = new ColumnLayout(getContext());
         layout.setLayoutParams(new LayoutParams(mColumnWidth, LayoutParams.MATCH_PARENT));
         if (header != null) {
             layout.addView(header);
             mHeaders.put(mLists.size(), header);
         }
-        layout.addView(recyclerView);
+        layout.addView(recyclerView,
+                new RecyclerView.LayoutParams(RecyclerView.LayoutParams.MATCH_PARENT,
+                        RecyclerView.LayoutParams.WRAP_CONTENT));
 
         mLists.add(recyclerView);
+        recyclerView.setColumn(mLists.size() - 1);
         mColumnLayout.addView(layout);
         return recyclerView;
     }
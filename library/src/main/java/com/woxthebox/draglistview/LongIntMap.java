@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to int values. Used for item id lookups so that no
+ * boxing is done while dragging.
+ */
+class LongIntMap {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] mKeys;
+    private int[] mValues;
+    private boolean[] mUsed;
+    private int mSize;
+    private int mMask;
+    private int mResizeThreshold;
+
+    LongIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongIntMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int get(long key, int valueIfMissing) {
+        int index = indexOf(key);
+        return index < 0 ? valueIfMissing : mValues[index];
+    }
+
+    boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    void put(long key, int value) {
+        int index = hash(key) & mMask;
+        while (mUsed[index]) {
+            if (mKeys[index] == key) {
+                mValues[index] = value;
+                return;
+            }
+            index = (index + 1) & mMask;
+        }
+
+        mUsed[index] = true;
+        mKeys[index] = key;
+        mValues[index] = value;
+        if (++mSize > mResizeThreshold) {
+            rehash(mKeys.length * 2);
+        }
+    }
+
+    void remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return;
+        }
+
+        // Shift following entries of the same probe chain back so no tombstones are needed
+        int hole = index;
+        int next = (hole + 1) & mMask;
+        while (mUsed[next]) {
+            int home = hash(mKeys[next]) & mMask;
+            boolean canMove = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (canMove) {
+                mKeys[hole] = mKeys[next];
+                mValues[hole] = mValues[next];
+                hole = next;
+            }
+            next = (next + 1) & mMask;
+        }
+        mUsed[hole] = false;
+        mSize--;
+    }
+
+    void clear() {
+        Arrays.fill(mUsed, false);
+        mSize = 0;
+    }
+
+    /**
+     * Clears the map and makes sure it can hold the expected number of entries without rehashing.
+     */
+    void reset(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > mKeys.length) {
+            allocate(capacity);
+        } else {
+            clear();
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = hash(key) & mMask;
+        while (mUsed[index]) {
+            if (mKeys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mMask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        boolean[] oldUsed = mUsed;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        mUsed = new boolean[capacity];
+        mMask = capacity - 1;
+        mResizeThreshold = (int) (capacity * LOAD_FACTOR);
+        mSize = 0;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
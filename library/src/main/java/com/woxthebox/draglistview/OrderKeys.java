@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+/**
+ * Generates order keys, strings that sort items when compared with {@link String#compareTo}. A new
+ * key can always be generated between two keys, so moving or inserting an item only needs a new key
+ * for that item and not for the items after it.
+ * <p/>
+ * Keys are base 62 fractions using the characters 0-9, A-Z and a-z in ASCII order, and never end
+ * with a 0 so there is always room for a key below them.
+ */
+public final class OrderKeys {
+    static final String DIGITS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    private OrderKeys() {
+    }
+
+    /**
+     * @param before the key to sort after or null for no lower bound.
+     * @param after the key to sort before or null for no upper bound.
+     * @return the shortest key between the keys, close to the middle of them.
+     */
+    public static String between(String before, String after) {
+        checkKey(before);
+        checkKey(after);
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            throw new IllegalArgumentException(before + " is not before " + after);
+        }
+        return midpoint(before != null ? before : "", after);
+    }
+
+    /**
+     * @return count keys in ascending order evenly spread between the keys. The keys grow with the
+     * log of the count, 10000 keys without bounds are at most 3 characters long.
+     */
+    public static String[] between(String before, String after, int count) {
+        checkKey(before);
+        checkKey(after);
+        String[] keys = new String[count];
+        spread(before, after, keys, 0, count);
+        return keys;
+    }
+
+    private static void spread(String before, String after, String[] keys, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        // Bisect so the keys grow with the log of the count instead of the count
+        int middle = (from + to) >>> 1;
+        keys[middle] = between(before, after);
+        spread(before, keys[middle], keys, from, middle);
+        spread(keys[middle], after, keys, middle + 1, to);
+    }
+
+    /**
+     * @return a key between a and b, where a can be empty for zero and b null for one.
+     */
+    private static String midpoint(String a, String b) {
+        if (b != null) {
+            int prefix = 0;
+            while (prefix < b.length() && digitAt(a, prefix) == digitAt(b, prefix)) {
+                prefix++;
+            }
+            if (prefix > 0) {
+                return b.substring(0, prefix)
+                        + midpoint(a.length() > prefix ? a.substring(prefix) : "", b.substring(prefix));
+            }
+        }
+
+        int digitA = digitAt(a, 0);
+        int digitB = b != null ? digitAt(b, 0) : BASE;
+        if (digitB - digitA > 1) {
+            return String.valueOf(DIGITS.charAt((digitA + digitB) / 2));
+        }
+        if (b != null && b.length() > 1) {
+            // The first digit of b alone is below b and above a
+            return b.substring(0, 1);
+        }
+        return DIGITS.charAt(digitA) + midpoint(a.length() > 1 ? a.substring(1) : "", null);
+    }
+
+    private static int digitAt(String key, int index) {
+        return index < key.length() ? DIGITS.indexOf(key.charAt(index)) : 0;
+    }
+
+    private static void checkKey(String key) {
+        if (key == null) {
+            return;
+        }
+        if (key.isEmpty() || key.charAt(key.length() - 1) == DIGITS.charAt(0)) {
+            throw new IllegalArgumentException("Invalid order key " + key);
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (DIGITS.indexOf(key.charAt(i)) < 0) {
+                throw new IllegalArgumentException("Invalid order key " + key);
+            }
+        }
+    }
+}
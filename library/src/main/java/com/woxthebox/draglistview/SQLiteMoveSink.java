@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.List;
+
+/**
+ * A {@link BoardWriteBehind.Sink} that updates the column and order key of moved items in a SQLite
+ * table, with one compiled statement and one transaction per batch.
+ * <p/>
+ * Order keys must be enabled in the adapters of the board, see
+ * {@link DragItemAdapter#setOrderKeysEnabled}. A row is only valid until the next move in its column
+ * and storing it would leave the rows of the other items in the column wrong. Moves without an
+ * order key are skipped with a warning so they do not keep the rest of the batch from being stored.
+ */
+public class SQLiteMoveSink implements BoardWriteBehind.Sink {
+    private static final String TAG = "SQLiteMoveSink";
+
+    private final SQLiteDatabase mDatabase;
+    private final String mSql;
+
+    /**
+     * @param table the table with one row per item.
+     * @param idColumn the column with the item ids.
+     * @param boardColumnColumn the column that gets the id of the board column of the item.
+     * @param orderColumn the column that gets the order key of the item, the items are sorted on it
+     * when they are read.
+     */
+    public SQLiteMoveSink(SQLiteDatabase database, String table, String idColumn,
+            String boardColumnColumn, String orderColumn) {
+        mDatabase = database;
+        mSql = "UPDATE " + table + " SET " + boardColumnColumn + " = ?, " + orderColumn + " = ? WHERE "
+                + idColumn + " = ?";
+    }
+
+    @Override
+    public void write(List<BoardWriteBehind.ItemMove> moves) {
+        SQLiteStatement statement = mDatabase.compileStatement(mSql);
+        mDatabase.beginTransaction();
+        try {
+            for (BoardWriteBehind.ItemMove move : moves) {
+                if (move.orderKey == null) {
+                    Log.w(TAG, "Skipped move of item " + move.itemId + " without an order key");
+                    continue;
+                }
+                statement.clearBindings();
+                statement.bindLong(1, move.columnId);
+                statement.bindString(2, move.orderKey);
+                statement.bindLong(3, move.itemId);
+                statement.executeUpdateDelete();
+            }
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+            statement.close();
+        }
+    }
+}
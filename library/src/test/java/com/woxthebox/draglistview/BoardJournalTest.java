@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.woxthebox.draglistview;
+
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static android.support.v7.widget.RecyclerView.NO_ID;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class BoardJournalTest {
+    private static final BoardJournal.ItemResolver ITEM_RESOLVER = new BoardJournal.ItemResolver() {
+        @Override
+        public Object getItem(long itemId) {
+            return itemId;
+        }
+    };
+
+    private BoardView board;
+    private BoardJournal subject;
+
+    @Before
+    public void setUp() {
+        board = createBoard();
+        subject = new BoardJournal();
+        board.setJournal(subject);
+    }
+
+    @Test
+    public void fromByteArray_withWrittenJournal_readsSameOperations() throws IOException {
+        subject.recordAdd(-3, 7, NO_ID, 0);
+        subject.recordMove(Long.MAX_VALUE, -1, Long.MIN_VALUE, 1000000);
+        subject.recordRemove(5);
+        subject.recordReplace(-5);
+        subject.recordMoveColumn(7, 2);
+
+        BoardJournal journal = BoardJournal.fromByteArray(subject.toByteArray());
+
+        assertThat(journal.getOperationCount()).isEqualTo(5);
+        for (int i = 0; i < 5; i++) {
+            BoardJournal.Operation expected = subject.getOperation(i);
+            BoardJournal.Operation operation = journal.getOperation(i);
+            assertThat(operation.type).isEqualTo(expected.type);
+            assertThat(operation.itemId).isEqualTo(expected.itemId);
+            assertThat(operation.columnId).isEqualTo(expected.columnId);
+            assertThat(operation.afterItemId).isEqualTo(expected.afterItemId);
+            assertThat(operation.row).isEqualTo(expected.row);
+        }
+    }
+
+    @Test
+    public void fromByteArray_withTruncatedJournal_throwsIOException() {
+        subject.recordAdd(1, 2, 3, 4);
+        subject.recordMoveColumn(2, 0);
+        byte[] bytes = subject.toByteArray();
+
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                BoardJournal.fromByteArray(Arrays.copyOf(bytes, length));
+                throw new AssertionError("Read a journal truncated to " + length + " bytes");
+            } catch (IOException expected) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void compact_withSupersededOperations_keepsLeastOperations() {
+        // Column 0 starts as 1, 2, 3, 4 and column 1 is empty
+        subject.recordAdd(10, 0, 1, 1);
+        subject.recordMove(3, 1, NO_ID, 0);
+        subject.recordMove(3, 0, 1, 1);
+        subject.recordMove(3, 1, NO_ID, 0);
+        subject.recordAdd(12, 0, NO_ID, 0);
+        subject.recordRemove(12);
+        subject.recordRemove(4);
+        subject.recordRemove(2);
+        subject.recordAdd(2, 0, 10, 2);
+
+        subject.compact(new BoardSnapshot(new BoardSnapshot.Column[]{
+                new BoardSnapshot.Column(0, new long[]{1, 10, 2}, NO_ID, 0),
+                new BoardSnapshot.Column(1, new long[]{3}, NO_ID, 0)
+        }));
+
+        assertThat(subject.getOperationCount()).isEqualTo(5);
+        assertOperation(0, BoardJournal.Type.REMOVE, 4);
+        assertOperation(1, BoardJournal.Type.ADD, 10);
+        assertThat(subject.getOperation(1).afterItemId).isEqualTo(1);
+        // The removed and added item is a move and a replace of the existing item
+        assertOperation(2, BoardJournal.Type.MOVE, 2);
+        assertThat(subject.getOperation(2).afterItemId).isEqualTo(10);
+        assertOperation(3, BoardJournal.Type.MOVE, 3);
+        assertThat(subject.getOperation(3).columnId).isEqualTo(1);
+        assertOperation(4, BoardJournal.Type.REPLACE, 2);
+    }
+
+    @Test
+    public void replay_withEditsOfBoardAndAdapters_givesSameBoard() throws IOException {
+        board.addItem(0, 1, 10L, false);
+        board.moveItem(0, 0, 1, 0, false);
+        board.removeItem(0, 2);
+        board.getAdapter(1).addItem(1, 20L);
+        board.getAdapter(0).changeItemPosition(0, 1);
+        board.getAdapter(1).removeItem(0);
+        BoardView other = createBoard();
+
+        BoardJournal.fromByteArray(subject.toByteArray()).replay(other, ITEM_RESOLVER);
+
+        assertThat(getItemIds(other, 0)).isEqualTo(getItemIds(board, 0));
+        assertThat(getItemIds(other, 1)).isEqualTo(getItemIds(board, 1));
+    }
+
+    @Test
+    public void addItem_onAdapterOfColumn_recordsAddToColumn() {
+        board.getAdapter(1).addItem(1, 20L);
+
+        assertThat(subject.getOperationCount()).isEqualTo(1);
+        assertOperation(0, BoardJournal.Type.ADD, 20);
+        assertThat(subject.getOperation(0).columnId).isEqualTo(board.getColumnId(1));
+        assertThat(subject.getOperation(0).afterItemId).isEqualTo(5);
+    }
+
+    @Test
+    public void moveItem_toOtherColumn_recordsOneMove() {
+        board.moveItem(0, 0, 1, 0, false);
+
+        assertThat(subject.getOperationCount()).isEqualTo(1);
+        assertOperation(0, BoardJournal.Type.MOVE, 1);
+    }
+
+    @Test
+    public void replay_withUnknownItems_skipsAddAndReplace() {
+        subject.recordAdd(30, board.getColumnId(0), NO_ID, 0);
+        subject.recordReplace(1);
+
+        subject.replay(board, new BoardJournal.ItemResolver() {
+            @Override
+            public Object getItem(long itemId) {
+                return null;
+            }
+        });
+
+        assertThat(getItemIds(board, 0)).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    private void assertOperation(int index, BoardJournal.Type type, long itemId) {
+        assertThat(subject.getOperation(index).type).isEqualTo(type);
+        assertThat(subject.getOperation(index).itemId).isEqualTo(itemId);
+    }
+
+    /**
+     * @return a board with the items 1, 2, 3, 4 in the first column and 5, 6 in the second.
+     */
+    private static BoardView createBoard() {
+        BoardView board = new BoardView(RuntimeEnvironment.application);
+        board.onFinishInflate();
+        board.addColumnList(new ItemAdapter(1L, 2L, 3L, 4L), null, null, false);
+        board.addColumnList(new ItemAdapter(5L, 6L), null, null, false);
+        return board;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> getItemIds(BoardView board, int column) {
+        return new ArrayList<>((List<Long>) board.getAdapter(column).getItemList());
+    }
+
+    private static class ItemAdapter extends DragItemAdapter<Long, DragItemAdapter.ViewHolder> {
+        ItemAdapter(Long... itemIds) {
+            setItemList(new ArrayList<>(Arrays.asList(itemIds)));
+        }
+
+        @Override
+        public long getUniqueItemId(int position) {
+            return mItemList.get(position);
+        }
+
+        @Override
+        public DragItemAdapter.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class BoardReplicaTest {
+    private static final long COLUMN_A = 0;
+    private static final long COLUMN_B = 1;
+
+    private BoardReplica first;
+    private BoardReplica second;
+
+    @Before
+    public void setUp() {
+        first = new BoardReplica(1);
+        second = new BoardReplica(2);
+        String previousKey = null;
+        for (long itemId = 0; itemId < 4; itemId++) {
+            previousKey = first.generateKey(previousKey, null);
+            first.put(itemId, COLUMN_A, previousKey);
+        }
+        second.merge(first.takeChanges());
+    }
+
+    @Test
+    public void merge_withConcurrentInsertsAtSamePlace_convergesToSameOrder() {
+        first.put(10, COLUMN_A, first.generateKey(first.getOrderKey(1), first.getOrderKey(2)));
+        second.put(20, COLUMN_A, second.generateKey(second.getOrderKey(1), second.getOrderKey(2)));
+
+        sync();
+
+        assertThat(first.getItemIds(COLUMN_A)).containsExactly(0L, 1L, 10L, 20L, 2L, 3L);
+        assertThat(second.getItemIds(COLUMN_A)).isEqualTo(first.getItemIds(COLUMN_A));
+    }
+
+    @Test
+    public void merge_withConcurrentMovesOfSameItem_keepsLatestMove() {
+        first.put(0, COLUMN_B, first.generateKey(null, null));
+        second.put(0, COLUMN_A, second.generateKey(second.getOrderKey(3), null));
+        second.put(0, COLUMN_B, second.generateKey(null, null));
+
+        sync();
+
+        assertThat(first.getColumnId(0)).isEqualTo(COLUMN_B);
+        assertThat(first.getOrderKey(0)).isEqualTo(second.getOrderKey(0));
+        assertThat(first.getItemIds(COLUMN_A)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void merge_withConcurrentMoveAndRemove_keepsItemRemoved() {
+        first.remove(2);
+        second.put(2, COLUMN_B, second.generateKey(null, null));
+        second.put(2, COLUMN_A, second.generateKey(null, second.getOrderKey(0)));
+
+        sync();
+
+        assertThat(first.contains(2)).isFalse();
+        assertThat(second.contains(2)).isFalse();
+        assertThat(second.getItemIds(COLUMN_A)).containsExactly(0L, 1L, 3L);
+    }
+
+    @Test
+    public void merge_withConcurrentRangeInsertsFromAdapters_keepsRangesTogether() {
+        ItemAdapter firstAdapter = bindAdapter(first);
+        ItemAdapter secondAdapter = bindAdapter(second);
+
+        firstAdapter.addItems(2, Arrays.asList(10L, 11L, 12L));
+        secondAdapter.addItems(2, Arrays.asList(20L, 21L, 22L));
+        List<BoardReplica.Update> firstChanges = first.takeChanges();
+        List<BoardReplica.Update> secondChanges = second.takeChanges();
+        first.merge(secondChanges);
+        second.merge(firstChanges);
+
+        assertThat(firstChanges.size()).isEqualTo(3);
+        assertThat(secondChanges.size()).isEqualTo(3);
+        assertThat(first.getItemIds(COLUMN_A))
+                .containsExactly(0L, 1L, 10L, 11L, 12L, 20L, 21L, 22L, 2L, 3L);
+        assertThat(second.getItemIds(COLUMN_A)).isEqualTo(first.getItemIds(COLUMN_A));
+    }
+
+    @Test
+    public void bindAdapter_withManyInsertsAtSamePlace_recordsOnlyInsertedItems() {
+        ItemAdapter adapter = bindAdapter(first);
+
+        for (long itemId = 100; itemId < 200; itemId++) {
+            adapter.addItem(2, itemId);
+            assertThat(first.takeChanges().size()).isEqualTo(1);
+        }
+
+        assertThat(first.getItemIds(COLUMN_A)).isEqualTo(adapter.getItemList());
+    }
+
+    @Test
+    public void bindAdapter_withInsertsAtSamePlace_limitsKeyLengthAndKeepsOrderOnMerge() {
+        ItemAdapter adapter = bindAdapter(first);
+        for (long itemId = 100; itemId < 400; itemId++) {
+            adapter.addItem(2, itemId);
+        }
+
+        second.merge(first.takeChanges());
+
+        for (int pos = 0; pos < adapter.getItemCount(); pos++) {
+            assertThat(adapter.getOrderKey(pos).length() <= 32).isTrue();
+        }
+        assertThat(first.getItemIds(COLUMN_A)).isEqualTo(adapter.getItemList());
+        assertThat(second.getItemIds(COLUMN_A)).isEqualTo(adapter.getItemList());
+    }
+
+    @Test
+    public void merge_withRandomEditsInAnyOrder_converges() {
+        Random random = new Random(42);
+        List<BoardReplica.Update> firstChanges = new ArrayList<>();
+        List<BoardReplica.Update> secondChanges = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            edit(first, random, 100 + i);
+            edit(second, random, 1000 + i);
+            firstChanges.addAll(first.takeChanges());
+            secondChanges.addAll(second.takeChanges());
+        }
+
+        Collections.shuffle(secondChanges, random);
+        first.merge(secondChanges);
+        second.merge(firstChanges);
+        // Merging again changes nothing
+        assertThat(first.merge(secondChanges)).isEqualTo(0);
+
+        assertThat(first.getItemIds(COLUMN_A)).isEqualTo(second.getItemIds(COLUMN_A));
+        assertThat(first.getItemIds(COLUMN_B)).isEqualTo(second.getItemIds(COLUMN_B));
+    }
+
+    private static void edit(BoardReplica replica, Random random, long newItemId) {
+        long columnId = random.nextBoolean() ? COLUMN_A : COLUMN_B;
+        List<Long> itemIds = replica.getItemIds(columnId);
+        int row = random.nextInt(itemIds.size() + 1);
+        String before = row > 0 ? replica.getOrderKey(itemIds.get(row - 1)) : null;
+        String after = row < itemIds.size() ? replica.getOrderKey(itemIds.get(row)) : null;
+        int action = random.nextInt(4);
+        if (action == 0 && !itemIds.isEmpty()) {
+            replica.remove(itemIds.get(random.nextInt(itemIds.size())));
+        } else if (action == 1) {
+            replica.put(newItemId, columnId, replica.generateKey(before, after));
+        } else {
+            List<Long> allItemIds = new ArrayList<>(replica.getItemIds(COLUMN_A));
+            allItemIds.addAll(replica.getItemIds(COLUMN_B));
+            if (!allItemIds.isEmpty()) {
+                long itemId = allItemIds.get(random.nextInt(allItemIds.size()));
+                if (!itemIds.contains(itemId)) {
+                    replica.put(itemId, columnId, replica.generateKey(before, after));
+                }
+            }
+        }
+    }
+
+    private static ItemAdapter bindAdapter(BoardReplica replica) {
+        ItemAdapter adapter = new ItemAdapter(replica);
+        adapter.setItemList(new ArrayList<>(replica.getItemIds(COLUMN_A)));
+        replica.bindAdapter(adapter, COLUMN_A);
+        // The items keep their keys from the replica
+        assertThat(replica.takeChanges().size()).isEqualTo(0);
+        return adapter;
+    }
+
+    private void sync() {
+        List<BoardReplica.Update> firstChanges = first.takeChanges();
+        first.merge(second.takeChanges());
+        second.merge(firstChanges);
+    }
+
+    private static class ItemAdapter extends DragItemAdapter<Long, DragItemAdapter.ViewHolder> {
+        private final BoardReplica replica;
+
+        ItemAdapter(BoardReplica replica) {
+            this.replica = replica;
+        }
+
+        @Override
+        public long getUniqueItemId(int position) {
+            return mItemList.get(position);
+        }
+
+        @Override
+        protected String getStoredOrderKey(Long item) {
+            return replica.getOrderKey(item);
+        }
+
+        @Override
+        public DragItemAdapter.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
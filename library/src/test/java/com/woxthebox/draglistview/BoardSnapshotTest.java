@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class BoardSnapshotTest {
+
+    private static BoardSnapshot createSnapshot() {
+        return new BoardSnapshot(new BoardSnapshot.Column[]{
+                new BoardSnapshot.Column(7, new long[]{1, 2, 3, 1000000, -5}, 2, -12),
+                new BoardSnapshot.Column(-1, new long[0], -1, 0),
+                new BoardSnapshot.Column(Long.MAX_VALUE, new long[]{Long.MIN_VALUE, Long.MAX_VALUE}, 0, 40)
+        });
+    }
+
+    @Test
+    public void fromByteArray_withWrittenSnapshot_readsSameBoard() throws IOException {
+        BoardSnapshot snapshot = createSnapshot();
+
+        BoardSnapshot subject = BoardSnapshot.fromByteArray(snapshot.toByteArray());
+
+        assertThat(subject.getColumnCount()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(subject.isColumnUnchanged(snapshot, i)).isTrue();
+            assertThat(subject.getColumn(i).getScrollItemId())
+                    .isEqualTo(snapshot.getColumn(i).getScrollItemId());
+            assertThat(subject.getColumn(i).getScrollOffset())
+                    .isEqualTo(snapshot.getColumn(i).getScrollOffset());
+        }
+    }
+
+    @Test
+    public void fromByteArray_withTruncatedSnapshot_throwsIOException() {
+        byte[] bytes = createSnapshot().toByteArray();
+
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                BoardSnapshot.fromByteArray(Arrays.copyOf(bytes, length));
+                throw new AssertionError("Read a snapshot truncated to " + length + " bytes");
+            } catch (IOException expected) {
+                // Every truncated snapshot must be rejected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void fromByteArray_withHugeItemCount_throwsIOException() throws IOException {
+        byte[] bytes = new BoardSnapshot(new BoardSnapshot.Column[]{
+                new BoardSnapshot.Column(0, new long[0], 0, 0)}).toByteArray();
+        // Replace the item count of the column, the last byte, with Integer.MAX_VALUE
+        byte[] corrupt = Arrays.copyOf(bytes, bytes.length + 4);
+        corrupt[bytes.length - 1] = (byte) 0xff;
+        corrupt[bytes.length] = (byte) 0xff;
+        corrupt[bytes.length + 1] = (byte) 0xff;
+        corrupt[bytes.length + 2] = (byte) 0xff;
+        corrupt[bytes.length + 3] = 0x07;
+
+        BoardSnapshot.fromByteArray(corrupt);
+    }
+
+    @Test(expected = IOException.class)
+    public void fromByteArray_withHugeColumnCount_throwsIOException() throws IOException {
+        BoardSnapshot.fromByteArray(new byte[]{0x44, 0x4c, 0x56, 0x42, 1,
+                (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07});
+    }
+
+    @Test(expected = IOException.class)
+    public void fromByteArray_withOtherData_throwsIOException() throws IOException {
+        BoardSnapshot.fromByteArray(new byte[]{1, 2, 3, 4, 5, 6});
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class BoardWriteBehindTest {
+    private final List<List<BoardWriteBehind.ItemMove>> batches = new ArrayList<>();
+    private boolean failWrites;
+    private BoardWriteBehind subject;
+
+    @Before
+    public void setUp() {
+        subject = new BoardWriteBehind(new BoardWriteBehind.Sink() {
+            @Override
+            public void write(List<BoardWriteBehind.ItemMove> moves) throws Exception {
+                if (failWrites) {
+                    throw new Exception("write failed");
+                }
+                batches.add(moves);
+            }
+        });
+        subject.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        });
+    }
+
+    @Test
+    public void flush_withSuccessiveMovesOfSameItem_writesLatestMoveOnce() {
+        subject.onItemMoved(1, 0, 3, null);
+        subject.onItemMoved(2, 0, 4, null);
+        subject.onItemMoved(1, 1, 0, null);
+
+        subject.flush();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(2);
+        assertThat(batches.get(0).get(0).itemId).isEqualTo(2);
+        assertThat(batches.get(0).get(1).itemId).isEqualTo(1);
+        assertThat(batches.get(0).get(1).columnId).isEqualTo(1);
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void flush_whenWriteFails_keepsMovesUntilNextFlush() {
+        failWrites = true;
+        subject.onItemMoved(1, 0, 3, null);
+        subject.flush();
+
+        assertThat(batches).isEmpty();
+        assertThat(subject.getPendingCount()).isEqualTo(1);
+
+        failWrites = false;
+        subject.flush();
+
+        assertThat(batches).hasSize(1);
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void flush_whenWriteFails_writesMovesAgainAfterDelay() {
+        subject.setDelay(100);
+        failWrites = true;
+        subject.onItemMoved(1, 0, 3, null);
+        subject.flush();
+
+        assertThat(batches).isEmpty();
+        failWrites = false;
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(batches).hasSize(1);
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onItemMoved_whileFailedBatchWaits_keepsRetryDelay() {
+        subject.setDelay(100);
+        failWrites = true;
+        subject.onItemMoved(1, 0, 3, null);
+        subject.flush();
+        // The first retry fails as well and the next one is 200 ms later
+        ShadowLooper.idleMainLooper(100);
+        failWrites = false;
+
+        subject.onItemMoved(2, 0, 4, null);
+        ShadowLooper.idleMainLooper(100);
+
+        assertThat(batches).isEmpty();
+        ShadowLooper.idleMainLooper(100);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(2);
+    }
+
+    @Test
+    public void flush_whenWriteFailsAndItemMovedAgain_writesLatestMove() {
+        failWrites = true;
+        subject.onItemMoved(1, 0, 3, null);
+        subject.flush();
+        subject.onItemMoved(1, 1, 0, null);
+
+        failWrites = false;
+        subject.flush();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(1);
+        assertThat(batches.get(0).get(0).columnId).isEqualTo(1);
+    }
+
+    @Test
+    public void sqliteSink_updatesColumnAndOrderOfMovedItems() throws Exception {
+        SQLiteDatabase database = SQLiteDatabase.create(null);
+        database.execSQL("CREATE TABLE items (id INTEGER PRIMARY KEY, board_column INTEGER, sort)");
+        database.execSQL("INSERT INTO items VALUES (1, 0, 'a'), (2, 0, 'b')");
+
+        new SQLiteMoveSink(database, "items", "id", "board_column", "sort").write(
+                Arrays.asList(new BoardWriteBehind.ItemMove(2, 1, 0, "V"),
+                        new BoardWriteBehind.ItemMove(1, 1, 1, "d")));
+
+        Cursor cursor = database.rawQuery("SELECT board_column, sort FROM items ORDER BY id", null);
+        assertThat(cursor.moveToNext()).isTrue();
+        assertThat(cursor.getLong(0)).isEqualTo(1);
+        assertThat(cursor.getString(1)).isEqualTo("d");
+        assertThat(cursor.moveToNext()).isTrue();
+        assertThat(cursor.getLong(0)).isEqualTo(1);
+        assertThat(cursor.getString(1)).isEqualTo("V");
+        cursor.close();
+        database.close();
+    }
+
+    @Test
+    public void sqliteSink_withoutOrderKey_skipsOnlyThatMove() throws Exception {
+        SQLiteDatabase database = SQLiteDatabase.create(null);
+        database.execSQL("CREATE TABLE items (id INTEGER PRIMARY KEY, board_column INTEGER, sort)");
+        database.execSQL("INSERT INTO items VALUES (1, 0, 'a'), (2, 0, 'b')");
+
+        new SQLiteMoveSink(database, "items", "id", "board_column", "sort").write(
+                Arrays.asList(new BoardWriteBehind.ItemMove(1, 1, 1, null),
+                        new BoardWriteBehind.ItemMove(2, 1, 0, "V")));
+
+        Cursor cursor = database.rawQuery("SELECT board_column, sort FROM items ORDER BY id", null);
+        assertThat(cursor.moveToNext()).isTrue();
+        assertThat(cursor.getLong(0)).isEqualTo(0);
+        assertThat(cursor.getString(1)).isEqualTo("a");
+        assertThat(cursor.moveToNext()).isTrue();
+        assertThat(cursor.getLong(0)).isEqualTo(1);
+        assertThat(cursor.getString(1)).isEqualTo("V");
+        cursor.close();
+        database.close();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares reorder cost of an ArrayList and an IndexedTreeList the way DragItemAdapter reorders
+ * while dragging. Only runs when the benchmark property is set:
+ * <p/>
+ * ./gradlew :library:testDebugUnitTest -Pbenchmark --tests '*IndexedTreeListBenchmark'
+ */
+public class IndexedTreeListBenchmark {
+    private static final int[] SIZES = {1000, 10000, 100000};
+    private static final int MOVES = 20000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("draglistview.benchmark"));
+    }
+
+    @Test
+    public void changeItemPosition_arrayListVsIndexedTreeList() {
+        for (int size : SIZES) {
+            List<Integer> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(i);
+            }
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                moveItems(new ArrayList<>(items));
+                moveItems(new IndexedTreeList<>(items));
+            }
+            long arrayListNanos = moveItems(new ArrayList<>(items));
+            long treeListNanos = moveItems(new IndexedTreeList<>(items));
+
+            System.out.println(String.format("%7d items: ArrayList %8.1f ns/move, IndexedTreeList %8.1f ns/move",
+                    size, (double) arrayListNanos / MOVES, (double) treeListNanos / MOVES));
+        }
+    }
+
+    private static long moveItems(List<Integer> list) {
+        // Same pattern as a drag, an item moves one step at a time at random positions
+        Random random = new Random(list.size());
+        int size = list.size();
+        long start = System.nanoTime();
+        for (int i = 0; i < MOVES; i++) {
+            int from = random.nextInt(size);
+            int to = from == size - 1 ? from - 1 : from + 1;
+            if (list instanceof IndexedTreeList) {
+                ((IndexedTreeList<Integer>) list).move(from, to);
+            } else {
+                list.add(to, list.remove(from));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
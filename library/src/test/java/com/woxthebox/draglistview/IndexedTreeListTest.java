@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class IndexedTreeListTest {
+
+    @Test
+    public void constructor_withCollection_keepsOrder() {
+        IndexedTreeList<String> subject = new IndexedTreeList<>(Arrays.asList("a", "b", "c", "d"));
+
+        assertThat(subject).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    public void move_movesItemToNewIndex() {
+        IndexedTreeList<String> subject = new IndexedTreeList<>(Arrays.asList("a", "b", "c", "d"));
+
+        subject.move(0, 2);
+        assertThat(subject).containsExactly("b", "c", "a", "d");
+
+        subject.move(3, 0);
+        assertThat(subject).containsExactly("d", "b", "c", "a");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outsideOfList_throwsException() {
+        new IndexedTreeList<>(Arrays.asList("a")).get(1);
+    }
+
+    @Test
+    public void randomOperations_matchArrayList() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        IndexedTreeList<Integer> subject = new IndexedTreeList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            int size = expected.size();
+            int operation = size == 0 ? 0 : random.nextInt(4);
+            switch (operation) {
+                case 0:
+                    int addIndex = random.nextInt(size + 1);
+                    expected.add(addIndex, i);
+                    subject.add(addIndex, i);
+                    break;
+                case 1:
+                    int removeIndex = random.nextInt(size);
+                    assertThat(subject.remove(removeIndex)).isEqualTo(expected.remove(removeIndex));
+                    break;
+                case 2:
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+                    expected.add(to, expected.remove(from));
+                    subject.move(from, to);
+                    break;
+                case 3:
+                    int setIndex = random.nextInt(size);
+                    assertThat(subject.set(setIndex, -i)).isEqualTo(expected.set(setIndex, -i));
+                    break;
+            }
+        }
+
+        assertThat(subject).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview.sample;
+
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import com.woxthebox.draglistview.BoardView;
+import com.woxthebox.draglistview.BoardViewPool;
+
+/**
+ * Drag benchmark tools of the debug build, added to the end of the board menu. To compare the
+ * current drag redraw with the old one, build a board with "Benchmark board", turn on "Log drag
+ * frames", drag an item across the columns for a few seconds and read the frame times from logcat
+ * on the DragFrameLogger tag. Then turn on "Legacy drag redraw" and drag the same way again.
+ */
+class DragDebugTools {
+    private static final int BENCHMARK_COLUMNS = 10;
+    private static final int MENU_BENCHMARK_BOARD = 1000;
+    private static final int MENU_LOG_DRAG_FRAMES = 1001;
+    private static final int MENU_LEGACY_DRAG_REDRAW = 1002;
+
+    private final BoardView mBoardView;
+    private final Runnable mAddColumn;
+    private final DragFrameLogger mFrameLogger = new DragFrameLogger("Board drag");
+    private final LegacyDragRedraw mLegacyDragRedraw = new LegacyDragRedraw();
+    private boolean mLogDragFrames;
+    private boolean mLegacyDragRedrawEnabled;
+
+    /**
+     * @param addColumn adds a column with items to the board, used to build the benchmark board.
+     */
+    DragDebugTools(BoardView boardView, Runnable addColumn) {
+        mBoardView = boardView;
+        mAddColumn = addColumn;
+    }
+
+    void onCreateOptionsMenu(Menu menu) {
+        menu.add(Menu.NONE, MENU_BENCHMARK_BOARD, Menu.NONE, "Benchmark board");
+        menu.add(Menu.NONE, MENU_LOG_DRAG_FRAMES, Menu.NONE, "Log drag frames").setCheckable(true);
+        menu.add(Menu.NONE, MENU_LEGACY_DRAG_REDRAW, Menu.NONE, "Legacy drag redraw")
+                .setCheckable(true);
+    }
+
+    void onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(MENU_LOG_DRAG_FRAMES).setChecked(mLogDragFrames);
+        menu.findItem(MENU_LEGACY_DRAG_REDRAW).setChecked(mLegacyDragRedrawEnabled);
+    }
+
+    boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case MENU_BENCHMARK_BOARD:
+                while (mBoardView.getColumnCount() < BENCHMARK_COLUMNS) {
+                    mAddColumn.run();
+                }
+                return true;
+            case MENU_LOG_DRAG_FRAMES:
+                mLogDragFrames = !mLogDragFrames;
+                return true;
+            case MENU_LEGACY_DRAG_REDRAW:
+                mLegacyDragRedrawEnabled = !mLegacyDragRedrawEnabled;
+                return true;
+        }
+        return false;
+    }
+
+    void onDragStarted(int column) {
+        if (mLogDragFrames) {
+            mFrameLogger.start();
+        }
+        if (mLegacyDragRedrawEnabled) {
+            mLegacyDragRedraw.start(mBoardView, mBoardView.getRecyclerView(column));
+        }
+    }
+
+    void onDragEnded() {
+        mLegacyDragRedraw.stop();
+        if (mLogDragFrames) {
+            mFrameLogger.stop();
+            BoardViewPool pool = mBoardView.getViewPool();
+            if (pool != null) {
+                Log.i("DragFrameLogger", "View pool hits: " + pool.getHitCount()
+                        + " misses: " + pool.getMissCount());
+            }
+        }
+    }
+}
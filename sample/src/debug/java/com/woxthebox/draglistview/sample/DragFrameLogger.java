@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview.sample;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.util.Log;
+import android.view.Choreographer;
+
+/**
+ * Logs frame times while an item is dragged, used to compare drag performance between builds or
+ * with {@link LegacyDragRedraw} turned on and off. Enable "Log drag frames" in the board menu of a
+ * debug build, filter logcat on the DragFrameLogger tag and drag an item around for a few seconds.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class DragFrameLogger implements Choreographer.FrameCallback {
+    private static final String TAG = "DragFrameLogger";
+    private static final long FRAME_BUDGET_NANOS = 16666667;
+
+    private final String mName;
+    private boolean mRunning;
+    private long mLastFrameNanos;
+    private long mTotalNanos;
+    private long mMaxNanos;
+    private int mFrames;
+    private int mJankFrames;
+
+    DragFrameLogger(String name) {
+        mName = name;
+    }
+
+    void start() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN || mRunning) {
+            return;
+        }
+        mRunning = true;
+        mLastFrameNanos = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+        mFrames = 0;
+        mJankFrames = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (mFrames > 0) {
+            Log.i(TAG, String.format("%s: %d frames, avg %.2f ms, max %.2f ms, %d over budget",
+                    mName, mFrames, mTotalNanos / 1e6 / mFrames, mMaxNanos / 1e6, mJankFrames));
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mLastFrameNanos != 0) {
+            long frameNanos = frameTimeNanos - mLastFrameNanos;
+            mTotalNanos += frameNanos;
+            mMaxNanos = Math.max(mMaxNanos, frameNanos);
+            mFrames++;
+            if (frameNanos > FRAME_BUDGET_NANOS * 3 / 2) {
+                mJankFrames++;
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview.sample;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Invalidates views on every frame while an item is dragged. The drag shadow used to invalidate the
+ * board and the dragging list on every move, this brings that back so {@link DragFrameLogger} can
+ * compare the old drag path with the current one on the same build.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class LegacyDragRedraw implements Choreographer.FrameCallback {
+    private View[] mViews;
+    private boolean mRunning;
+
+    void start(View... views) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN || mRunning) {
+            return;
+        }
+        mViews = views;
+        mRunning = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        mViews = null;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        for (View view : mViews) {
+            view.invalidate();
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
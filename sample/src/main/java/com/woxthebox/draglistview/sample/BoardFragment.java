@@ -48,6 +48,7 @@ public class BoardFragment extends Fragment {
 
     private static int sCreatedItems = 0;
     private KanbanBoard mBoardView;
+    private DragDebugTools mDragDebugTools;
     private int mColumns;
 
     public static BoardFragment newInstance() {
@@ -81,9 +82,16 @@ public class BoardFragment extends Fragment {
 
         mBoardView.setSnapToColumnInLandscape(false);
         mBoardView.setColumnSnapPosition(BoardView.ColumnSnapPosition.CENTER);
+        mDragDebugTools = new DragDebugTools(mBoardView, new Runnable() {
+            @Override
+            public void run() {
+                addColumnList();
+            }
+        });
         mBoardView.setBoardListener(new BoardView.BoardListener() {
             @Override
             public void onItemDragStarted(int column, int row) {
+                mDragDebugTools.onDragStarted(column);
                 Toast.makeText(mBoardView.getContext(),
                         "Start - column: " + column + " row: " + row, Toast.LENGTH_SHORT).show();
             }
@@ -106,6 +114,7 @@ public class BoardFragment extends Fragment {
 
             @Override
             public void onItemDragEnded(int fromColumn, int fromRow, int toColumn, int toRow) {
+                mDragDebugTools.onDragEnded();
                 if (fromColumn != toColumn || fromRow != toRow) {
                     Toast.makeText(mBoardView.getContext(),
                             "End - column: " + toColumn + " row: " + toRow, Toast.LENGTH_SHORT)
@@ -160,6 +169,7 @@ public class BoardFragment extends Fragment {
     public void onCreateOptionsMenu(Menu menu, MenuInflater inflater) {
         super.onCreateOptionsMenu(menu, inflater);
         inflater.inflate(R.menu.menu_board, menu);
+        mDragDebugTools.onCreateOptionsMenu(menu);
     }
 
     @Override
@@ -167,6 +177,9 @@ public class BoardFragment extends Fragment {
         super.onPrepareOptionsMenu(menu);
         menu.findItem(R.id.action_disable_drag).setVisible(mBoardView.isDragEnabled());
         menu.findItem(R.id.action_enable_drag).setVisible(!mBoardView.isDragEnabled());
+        menu.findItem(R.id.action_shared_view_pool).setChecked(mBoardView.getViewPool() != null);
+        menu.findItem(R.id.action_drag_ghost).setChecked(mBoardView.isDragGhostEnabled());
+        mDragDebugTools.onPrepareOptionsMenu(menu);
     }
 
     @Override
@@ -189,6 +202,18 @@ public class BoardFragment extends Fragment {
             case R.id.action_clear_board:
                 mBoardView.clearBoard();
                 return true;
+            case R.id.action_shared_view_pool:
+                mBoardView.setSharedViewPoolEnabled(!item.isChecked());
+                getActivity().invalidateOptionsMenu();
+                return true;
+            case R.id.action_drag_ghost:
+                mBoardView.setDragGhostEnabled(!item.isChecked());
+                getActivity().invalidateOptionsMenu();
+                return true;
+        }
+        if (mDragDebugTools.onOptionsItemSelected(item)) {
+            getActivity().invalidateOptionsMenu();
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
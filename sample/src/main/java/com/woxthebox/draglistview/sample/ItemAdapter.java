@@ -44,9 +44,21 @@ class ItemAdapter extends DragItemAdapter<Pair<Long, String>, ItemAdapter.ViewHo
         mLayoutId = layoutId;
         mGrabHandleId = grabHandleId;
         mDragOnLongPress = dragOnLongPress;
+        setItemIdProvider(new ItemIdProvider<Pair<Long, String>>() {
+            @Override
+            public long getItemId(Pair<Long, String> item) {
+                return item.first;
+            }
+        });
         setItemList(list);
     }
 
+    @Override
+    public int getItemViewType(int position) {
+        // The board shares its view pool between columns so use the layout to tell them apart
+        return mLayoutId;
+    }
+
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(mLayoutId, parent, false);
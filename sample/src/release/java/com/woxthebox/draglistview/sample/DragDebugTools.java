@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview.sample;
+
+import android.view.Menu;
+import android.view.MenuItem;
+import com.woxthebox.draglistview.BoardView;
+
+/**
+ * The drag benchmark tools are only in the debug build, see the debug source set.
+ */
+class DragDebugTools {
+
+    DragDebugTools(BoardView boardView, Runnable addColumn) {
+    }
+
+    void onCreateOptionsMenu(Menu menu) {
+    }
+
+    void onPrepareOptionsMenu(Menu menu) {
+    }
+
+    boolean onOptionsItemSelected(MenuItem item) {
+        return false;
+    }
+
+    void onDragStarted(int column) {
+    }
+
+    void onDragEnded() {
+    }
+}